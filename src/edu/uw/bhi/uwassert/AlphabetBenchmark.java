@@ -0,0 +1,171 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+import name.adibejan.util.Alphabet;
+import name.adibejan.util.AlphabetLookup;
+import name.adibejan.util.BinaryAlphabet;
+import name.adibejan.util.DoubleArrayTrieAlphabet;
+import name.adibejan.util.FrozenAlphabet;
+import name.adibejan.util.PerfectHashAlphabet;
+import name.adibejan.util.PrefixLookup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares the alphabet backends on a serialized alphabet: the retained heap
+ * of each backend once loaded, its load time and the lookup latency of all the
+ * alphabet keys and of as many unknown keys. The backends that implement
+ * <code>PrefixLookup</code> are also measured with the <code>TYPE#</code>
+ * prefix state computed once and the value looked up in place, as done by
+ * <code>TypedFeatureLookup</code>. The binary, perfect hash and trie files are
+ * written to temporary files first. The heap numbers come from
+ * <code>Runtime</code> after garbage collection, so they are approximate.
+ *
+ * Usage: java edu.uw.bhi.uwassert.AlphabetBenchmark alphabet.alph [rounds]
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class AlphabetBenchmark {
+    private static final String[] BACKENDS = { "frozen", "binary", "mph", "trie" };
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: please, specify a serialized alphabet and optionally the number of rounds.");
+            return;
+        }
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        Alphabet<String> alphabet = Alphabet.<String>load(args[0]);
+        int size = alphabet.getSize();
+        String[] keys = new String[size];
+        String[] unknownKeys = new String[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = alphabet.getItem(i);
+            unknownKeys[i] = keys[i] + "_";
+        }
+        File binaryFile = File.createTempFile("alphabet", ".balph");
+        File mphFile = File.createTempFile("alphabet", ".mph");
+        File trieFile = File.createTempFile("alphabet", ".trie");
+        binaryFile.deleteOnExit();
+        mphFile.deleteOnExit();
+        trieFile.deleteOnExit();
+        BinaryAlphabet.save(alphabet, binaryFile.getPath());
+        PerfectHashAlphabet.build(alphabet).save(mphFile.getPath());
+        DoubleArrayTrieAlphabet.build(alphabet).save(trieFile.getPath());
+        alphabet = null;
+
+        System.out.println("keys: " + size + " rounds: " + rounds);
+        for (String backend : BACKENDS) {
+            long before = usedMemory();
+            long start = System.nanoTime();
+            AlphabetLookup<String> alph = null;
+            if (backend.equals("frozen"))
+                alph = Alphabet.<String>load(args[0]).freeze();
+            else if (backend.equals("binary"))
+                alph = BinaryAlphabet.load(binaryFile.getPath());
+            else if (backend.equals("mph"))
+                alph = PerfectHashAlphabet.load(mphFile.getPath());
+            else
+                alph = DoubleArrayTrieAlphabet.load(trieFile.getPath());
+            long loadTime = System.nanoTime() - start;
+            long heap = usedMemory() - before;
+
+            int mismatches = 0;
+            for (int i = 0; i < size; i++) {
+                if (alph.getIndex(keys[i]) != i)
+                    mismatches++;
+            }
+            long known = timeLookups(alph, keys, rounds);
+            long unknown = timeLookups(alph, unknownKeys, rounds);
+            String prefixed = "";
+            if (alph instanceof PrefixLookup) {
+                prefixed = String.format("  prefixed: %6.1f ns", (double) timePrefixedLookups((PrefixLookup) alph,
+                        keys, rounds) / ((long) rounds * size));
+            }
+            System.out.println(String.format("%-7s heap: %9d bytes  load: %5d ms  known: %6.1f ns  unknown: %6.1f ns%s  mismatches: %d",
+                    backend, heap, loadTime / 1000000, (double) known / ((long) rounds * size),
+                    (double) unknown / ((long) rounds * size), prefixed, mismatches));
+            alph = null;
+        }
+    }
+
+    private static long timeLookups(AlphabetLookup<String> alph, String[] keys, int rounds) {
+        long checksum = 0;
+        for (String key : keys) {
+            checksum += alph.getIndex(key);
+        }
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (String key : keys) {
+                checksum += alph.getIndex(key);
+            }
+        }
+        long time = System.nanoTime() - start;
+        if (checksum == 42)
+            System.out.println();
+        return time;
+    }
+
+    /**
+     * Looks up every key as its <code>TYPE#</code> prefix (state computed once per type) plus its value
+     */
+    private static long timePrefixedLookups(PrefixLookup alph, String[] keys, int rounds) {
+        Map<String, Long> states = new HashMap<String, Long>();
+        String[] prefixes = new String[keys.length];
+        long[] prefixStates = new long[keys.length];
+        int[] valueStarts = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            valueStarts[i] = keys[i].indexOf('#') + 1;
+            prefixes[i] = keys[i].substring(0, valueStarts[i]);
+            if (!states.containsKey(prefixes[i]))
+                states.put(prefixes[i], alph.getPrefixState(prefixes[i]));
+            prefixStates[i] = states.get(prefixes[i]);
+        }
+        long checksum = 0;
+        long start = 0;
+        for (int r = -1; r < rounds; r++) {
+            if (r == 0)
+                start = System.nanoTime();
+            for (int i = 0; i < keys.length; i++) {
+                checksum += alph.getIndex(prefixStates[i], prefixes[i], keys[i], valueStarts[i], keys[i].length());
+            }
+        }
+        long time = System.nanoTime() - start;
+        if (checksum == 42)
+            System.out.println();
+        return time;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
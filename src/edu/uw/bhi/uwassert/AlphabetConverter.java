@@ -0,0 +1,173 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+import name.adibejan.util.Alphabet;
+import name.adibejan.util.AlphabetLookup;
+import name.adibejan.util.BinaryAlphabet;
+import name.adibejan.util.DoubleArrayTrieAlphabet;
+import name.adibejan.util.FrozenAlphabet;
+import name.adibejan.util.PerfectHashAlphabet;
+
+import java.io.IOException;
+
+/**
+ * Converts a serialized feature alphabet (e.g. train_nosplit.alph) into the
+ * binary format read by <code>BinaryAlphabet</code> (default), into a minimal
+ * perfect hash alphabet (<code>PerfectHashAlphabet</code>) or into a double-array
+ * trie (<code>DoubleArrayTrieAlphabet</code>), checks that every item maps to the
+ * same index and compares the startup time of the formats
+ *
+ * Usage: java edu.uw.bhi.uwassert.AlphabetConverter alphabet.alph output [binary|mph|trie]
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class AlphabetConverter {
+
+    /**
+     * An output format: how the alphabet is written and how the written file
+     * is read back (some formats have several readers, e.g. load and map)
+     */
+    private static abstract class Format {
+        private final String[] readers;
+
+        Format(String... readers) {
+            this.readers = readers;
+        }
+
+        abstract void save(Alphabet<String> alphabet, String outputPath) throws IOException;
+
+        abstract AlphabetLookup<String> read(int reader, String outputPath) throws IOException;
+
+        /**
+         * Returns the statistics of a format (null if none)
+         */
+        String getStats(AlphabetLookup<String> loaded) {
+            return null;
+        }
+    }
+
+    private static final Format BINARY = new Format("load", "map") {
+        void save(Alphabet<String> alphabet, String outputPath) throws IOException {
+            BinaryAlphabet.save(alphabet, outputPath);
+        }
+
+        AlphabetLookup<String> read(int reader, String outputPath) throws IOException {
+            return reader == 0 ? BinaryAlphabet.load(outputPath) : BinaryAlphabet.map(outputPath);
+        }
+    };
+
+    private static final Format PERFECT_HASH = new Format("load") {
+        void save(Alphabet<String> alphabet, String outputPath) throws IOException {
+            PerfectHashAlphabet.build(alphabet).save(outputPath);
+        }
+
+        AlphabetLookup<String> read(int reader, String outputPath) throws IOException {
+            return PerfectHashAlphabet.load(outputPath);
+        }
+
+        String getStats(AlphabetLookup<String> loaded) {
+            PerfectHashAlphabet mph = (PerfectHashAlphabet) loaded;
+            return String.format("pilot bits/key: %.2f, total bits/key: %.2f", mph.getPilotBitsPerKey(),
+                    mph.getBitsPerKey());
+        }
+    };
+
+    private static final Format TRIE = new Format("load") {
+        void save(Alphabet<String> alphabet, String outputPath) throws IOException {
+            DoubleArrayTrieAlphabet.build(alphabet).save(outputPath);
+        }
+
+        AlphabetLookup<String> read(int reader, String outputPath) throws IOException {
+            return DoubleArrayTrieAlphabet.load(outputPath);
+        }
+
+        String getStats(AlphabetLookup<String> loaded) {
+            DoubleArrayTrieAlphabet trie = (DoubleArrayTrieAlphabet) loaded;
+            return "nodes: " + trie.getNodeCount() + " tail bytes: " + trie.getTailSize() + " array bytes: "
+                    + trie.getMemoryBytes();
+        }
+    };
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: please, specify a serialized alphabet, the binary output file and optionally the format (binary | mph | trie).");
+            return;
+        }
+        Format format = BINARY;
+        if (args.length > 2 && args[2].equals("mph"))
+            format = PERFECT_HASH;
+        else if (args.length > 2 && args[2].equals("trie"))
+            format = TRIE;
+        convert(args[0], args[1], format);
+    }
+
+    /**
+     * Writes an alphabet in a format, reads it back with every reader of the
+     * format and reports the mismatches and the timings
+     */
+    private static void convert(String alphabetPath, String outputPath, Format format) {
+        try {
+            long start = System.nanoTime();
+            Alphabet<String> alphabet = Alphabet.<String>load(alphabetPath);
+            FrozenAlphabet<String> frozen = alphabet.freeze();
+            long serializedTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            format.save(alphabet, outputPath);
+            long buildTime = System.nanoTime() - start;
+
+            int mismatches = 0;
+            String stats = null;
+            StringBuilder times = new StringBuilder();
+            for (int reader = 0; reader < format.readers.length; reader++) {
+                start = System.nanoTime();
+                AlphabetLookup<String> loaded = format.read(reader, outputPath);
+                long readTime = System.nanoTime() - start;
+                times.append(", ").append(format.readers[reader]).append(": ").append(readTime / 1000000).append(" ms");
+                mismatches += countMismatches(frozen, loaded);
+                if (stats == null)
+                    stats = format.getStats(loaded);
+            }
+
+            System.out.println("items: " + frozen.getSize() + " mismatches: " + mismatches);
+            if (stats != null)
+                System.out.println(stats);
+            System.out.println("serialized load+freeze: " + serializedTime / 1000000 + " ms, build: "
+                    + buildTime / 1000000 + " ms" + times);
+        } catch (IOException ioe) {
+            System.out.println("Error while converting the alphabet [" + alphabetPath + "]");
+            ioe.printStackTrace();
+        }
+    }
+
+    private static int countMismatches(FrozenAlphabet<String> expected, AlphabetLookup<String> actual) {
+        int mismatches = 0;
+        for (int i = 0; i < expected.getSize(); i++) {
+            if (actual.getIndex(expected.getItem(i)) != i)
+                mismatches++;
+        }
+        return mismatches;
+    }
+}
@@ -21,29 +21,92 @@
 
 package edu.uw.bhi.uwassert;
 
-import name.adibejan.util.Alphabet;
 import name.adibejan.util.Config;
 import name.adibejan.util.EnumUtil;
 import name.adibejan.util.IntPair;
+import name.adibejan.util.IntSetBuffer;
 import name.adibejan.util.ConfigurationException;
 import name.adibejan.learning.features.DynamicFeatureManager;
+import name.adibejan.learning.features.IndexFeatureSink;
+import name.adibejan.learning.features.TypedFeatureLookup;
+import edu.uw.bhi.uwassert.LexFeatureExtractor.FeatureScope;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Assert System
  *
+ * The model, alphabet and signal lists are kept in one <code>AssertionModel</code>
+ * that can be reloaded without a restart: the new bundle is loaded next to the
+ * current one and swapped in atomically, so predictions in flight finish on the
+ * old bundle and the following ones use the new bundle.
+ *
+ * Deployment contract for the reloads: every resource file is published by
+ * atomic rename, i.e. written to a temporary file in the same directory and
+ * then renamed over its configured path (the model and alphabet writers of
+ * this package do so, see <code>FileUtil.writeAtomically</code>). The old file
+ * then lives on, unchanged, as long as the old bundle reads it, which is what
+ * keeps the memory-mapped storage (<code>WeightStorage.MAPPED</code>, binary
+ * alphabets) of the predictions in flight valid. A file that is written in
+ * place (same file, new content) is not reloaded and a warning is printed:
+ * the reader could see it half written and a mapped reader could fault. A
+ * bundle whose model and alphabet do not match (e.g. only one of them has
+ * been published yet) is rejected by <code>AssertionModel.isValid</code>, and
+ * the next published file triggers another reload.
+ *
  * @author Nic Dobbins, adapted from AssertionClassification.java by Cosmin Adrian Bejan
  * @version 1.0
  * @since JDK1.6 | July 2011
  */
 public class AssertionClassifier {
     private String ASSERTRESOURCES;
-    private LibLinearDecoder decoder = null;
-    private Alphabet<String> alph = null;
-    private LexFeatureExtractor featureExtractor = new LexFeatureExtractor();
+    private final AtomicReference<AssertionModel> model = new AtomicReference<AssertionModel>();
     private DynamicFeatureManager<AssertFeatures> featureManager = new DynamicFeatureManager<AssertFeatures>();
+    private ExecutorService reloader = null;
+    private WatchService watchService = null;
+    private volatile long lastReloadMillis = -1;
+    /* one set of prediction buffers per thread, reused from one prediction to the next */
+    private final ThreadLocal<PredictionBuffers> predictionBuffers = new ThreadLocal<PredictionBuffers>() {
+        @Override
+        protected PredictionBuffers initialValue() {
+            return new PredictionBuffers();
+        }
+    };
+
+    /**
+     * The concept span and the feature index sink of a thread. The sink is
+     * rebuilt only when a reload brings a new feature lookup.
+     */
+    private static class PredictionBuffers {
+        final IntSetBuffer indices = new IntSetBuffer();
+        final IntPair span = new IntPair(0, 0);
+        TypedFeatureLookup lookup;
+        IndexFeatureSink sink;
+    }
 
     public AssertionClassifier() {
 
@@ -57,25 +120,309 @@ public class AssertionClassifier {
         AssertConfig.set();
         AssertConfig.setFeaturesMask(AssertConfig.GFB_FEATURE_SET_RESTRICT);
         AssertConfig.setFeaturesFilter(AssertConfig.GFB_FEATURE_SET_RESTRICT);
-        featureManager.setFeatureTypeFilter(AssertConfig.getFeaturesFilter());
-        featureExtractor.loadSignals(ASSERTRESOURCES);
-        decoder = new LibLinearDecoder(ASSERTRESOURCES + Config.getP("run.learn.model_restrict"));
-        alph = Alphabet.load(ASSERTRESOURCES + Config.getP("run.learn.alphabet_restrict"));
+        featureManager.setFeatureTypeFilter(AssertConfig.getFeaturesFilter(), AssertConfig.featuresEnum);
+        model.set(AssertionModel.load(ASSERTRESOURCES, getWeightStorage()));
+    }
+
+    /**
+     * Reads the optional run.learn.model_storage property (heap by default)
+     */
+    private static WeightStorage getWeightStorage() {
+        String storage = Config.getP("run.learn.model_storage");
+        if (storage == null)
+            return WeightStorage.HEAP;
+        return WeightStorage.valueOf(storage.trim().toUpperCase());
+    }
+
+    /**
+     * Returns the model bundle currently used for predictions
+     */
+    public AssertionModel getModel() {
+        return model.get();
+    }
+
+    /**
+     * Loads the model, alphabet and signal lists again and swaps them in. If
+     * the new bundle cannot be read, the current one is kept.
+     *
+     * @return true if the new bundle was swapped in
+     */
+    public boolean reload() {
+        AssertionModel next = AssertionModel.load(ASSERTRESOURCES, getWeightStorage());
+        lastReloadMillis = next.getLoadMillis();
+        if (!next.isValid()) {
+            System.out.println("Could not reload the assertion model from [" + ASSERTRESOURCES + "], keeping the current one");
+            return false;
+        }
+        model.set(next);
+        System.out.println("Reloaded the assertion model in " + next.getLoadMillis() + " ms");
+        return true;
+    }
+
+    /**
+     * Reloads the model in a background thread (see {@link #reload()})
+     */
+    public synchronized Future<Boolean> reloadAsync() {
+        if (reloader == null) {
+            reloader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "assertion-model-reloader");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return reloader.submit(new Callable<Boolean>() {
+            public Boolean call() {
+                return reload();
+            }
+        });
+    }
+
+    /**
+     * Returns the duration of the last reload, or -1 if there was none
+     */
+    public long getLastReloadMillis() {
+        return lastReloadMillis;
+    }
+
+    /**
+     * Watches the model, alphabet and signal list files and reloads the model
+     * in the background when any of them is published by atomic rename (see the
+     * class doc). The files are told apart by their file key (e.g. the inode):
+     * a changed file with the same key was written in place and is not
+     * reloaded. Where the file system has no file keys, any change reloads.
+     */
+    public synchronized void watchModelFiles() throws IOException {
+        if (watchService != null)
+            return;
+        watchService = FileSystems.getDefault().newWatchService();
+        final Map<Path, Object> watched = new HashMap<Path, Object>();
+        Set<Path> dirs = new HashSet<Path>();
+        for (String resourcePath : AssertionModel.getResourcePaths(ASSERTRESOURCES)) {
+            Path path = Paths.get(resourcePath).toAbsolutePath().normalize();
+            watched.put(path, getFileKey(path));
+            dirs.add(path.getParent());
+        }
+        for (Path dir : dirs) {
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+
+        final WatchService service = watchService;
+        Thread watcher = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    while (true) {
+                        WatchKey key = service.take();
+                        Set<Path> changedPaths = new HashSet<Path>();
+                        do {
+                            for (WatchEvent<?> event : key.pollEvents()) {
+                                if (!(event.context() instanceof Path))
+                                    continue;
+                                Path path = ((Path) key.watchable()).resolve((Path) event.context());
+                                if (watched.containsKey(path))
+                                    changedPaths.add(path);
+                            }
+                            key.reset();
+
+                            // let a deployment that publishes several files settle
+                            key = service.poll(500, TimeUnit.MILLISECONDS);
+                        } while (key != null);
+
+                        boolean published = false;
+                        for (Path path : changedPaths) {
+                            Object fileKey = getFileKey(path);
+                            if (fileKey == null || !fileKey.equals(watched.get(path))) {
+                                watched.put(path, fileKey);
+                                published = true;
+                            } else {
+                                System.out.println("[" + path + "] was written in place, not reloading it:"
+                                        + " publish the model files by atomic rename");
+                            }
+                        }
+                        if (published)
+                            reloadAsync();
+                    }
+                } catch (InterruptedException ie) {
+                    // stopped
+                } catch (ClosedWatchServiceException cwse) {
+                    // stopped
+                }
+            }
+        }, "assertion-model-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Returns the file key (e.g. device and inode) of a file, or null if the
+     * file is missing or the file system has no file keys
+     */
+    private static Object getFileKey(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        } catch (IOException ioe) {
+            return null;
+        }
+    }
+
+    /**
+     * Stops the file watcher and the background reloader
+     */
+    public synchronized void close() {
+        try {
+            if (watchService != null)
+                watchService.close();
+        } catch (IOException ioe) {
+            System.out.println("Error in closing the watch service: " + ioe.getMessage());
+        }
+        watchService = null;
+        if (reloader != null)
+            reloader.shutdown();
+        reloader = null;
     }
 
     public String predict(String sentence, int first, int last) {
-        List<String> features = featureExtractor.extractFeatures(sentence, new IntPair(first, last));
-        return predictWithFeatures(features);
+        AssertionModel current = model.get();
+        PredictionBuffers buffers = predictionBuffers.get();
+        IndexFeatureSink sink = getIndexSink(current, buffers);
+        buffers.span.setPair(first, last);
+        current.getFeatureExtractor().extractFeatures(sentence, buffers.span, sink);
+        return getLabelName(current.getDecoder().decode(sink.getIndexBuffer(), sink.size()));
     }
 
     public String predict(String[] tokens, int first, int last) {
-        List<String> features = featureExtractor.extractFeatures(tokens, new IntPair(first, last));
-        return predictWithFeatures(features);
+        AssertionModel current = model.get();
+        PredictionBuffers buffers = predictionBuffers.get();
+        IndexFeatureSink sink = getIndexSink(current, buffers);
+        buffers.span.setPair(first, last);
+        current.getFeatureExtractor().extractFeatures(tokens, buffers.span, FeatureScope.ALL, sink);
+        return getLabelName(current.getDecoder().decode(sink.getIndexBuffer(), sink.size()));
+    }
+
+    /**
+     * Predicts the assertions of several concepts of the same text. The text is
+     * tokenized and aligned once, the sentence level analyses (flattened
+     * sentence, signals, experiencer, ...) are computed once, and the labels are
+     * the same as the ones of <code>predict(String, int, int)</code>.
+     *
+     * @param concepts the boundaries of the concepts (indices of the whitespace tokens)
+     * @return the labels, in the order of the concepts
+     */
+    public List<String> predict(String sentence, List<IntPair> concepts) {
+        AssertionModel current = model.get();
+        if (concepts.isEmpty())
+            return new ArrayList<String>(0);
+        List<IntPair> tokenConcepts = new ArrayList<IntPair>(concepts.size());
+        SentenceLevelResources resource = current.getFeatureExtractor().getSentenceResources(sentence, concepts,
+                tokenConcepts);
+        return predict(current, resource, tokenConcepts);
+    }
+
+    /**
+     * Predicts the assertions of several concepts of the same sentence. The
+     * features that do not depend on the concept (see
+     * <code>LexFeatureExtractor.FeatureScope</code>) are extracted and scored once
+     * into partial decision values, and only the concept features are added for
+     * each concept.
+     *
+     * @param concepts the token boundaries of the concepts
+     * @return the labels, in the order of the concepts
+     */
+    public List<String> predict(String[] tokens, List<IntPair> concepts) {
+        AssertionModel current = model.get();
+        if (concepts.isEmpty())
+            return new ArrayList<String>(0);
+        return predict(current, current.getFeatureExtractor().getSentenceResources(tokens), concepts);
+    }
+
+    private List<String> predict(AssertionModel current, SentenceLevelResources resource, List<IntPair> concepts) {
+        List<String> labels = new ArrayList<String>(concepts.size());
+        LexFeatureExtractor featureExtractor = current.getFeatureExtractor();
+        LibLinearDecoder decoder = current.getDecoder();
+        IntSetBuffer sentenceIdxs = new IntSetBuffer();
+        IndexFeatureSink sentenceSink = featureManager.getIndexSink(current.getFeatureLookup(), sentenceIdxs);
+
+        double[] sentenceScores = new double[decoder.getClassCount()];
+        featureExtractor.extractFeatures(resource, concepts.get(0), FeatureScope.SENTENCE, sentenceSink);
+        decoder.accumulate(sentenceSink.getIndexBuffer(), sentenceSink.size(), sentenceScores);
+
+        // an index of both scopes (e.g. a collision of a hashing alphabet) is
+        // counted once, as in the single pass over all the features
+        IndexFeatureSink sink = getIndexSink(current, predictionBuffers.get());
+        int[] conceptIdxs = new int[16];
+        DecisionValues result = new DecisionValues();
+        for (IntPair concept : concepts) {
+            sink.reset();
+            featureExtractor.extractFeatures(resource, concept, FeatureScope.CONCEPT, sink);
+            int[] idxs = sink.getIndexBuffer();
+            if (conceptIdxs.length < sink.size())
+                conceptIdxs = new int[sink.size()];
+            int count = 0;
+            for (int k = 0; k < sink.size(); k++)
+                if (!sentenceIdxs.contains(idxs[k]))
+                    conceptIdxs[count++] = idxs[k];
+            labels.add(getLabelName(decoder.decode(conceptIdxs, count, sentenceScores, result)));
+        }
+        return labels;
+    }
+
+    /**
+     * Predicts the assertion of a concept and fills <code>result</code> with the
+     * decision values of all the classes and the top-1/top-2 margin, so that a
+     * single decoding gives both the label and a confidence.
+     *
+     * @param result a reusable caller-owned result
+     */
+    public String score(String sentence, int first, int last, DecisionValues result) {
+        AssertionModel current = model.get();
+        PredictionBuffers buffers = predictionBuffers.get();
+        IndexFeatureSink sink = getIndexSink(current, buffers);
+        buffers.span.setPair(first, last);
+        current.getFeatureExtractor().extractFeatures(sentence, buffers.span, sink);
+        return getLabelName(current.getDecoder().decode(sink.getIndexBuffer(), sink.size(), null, result));
+    }
+
+    public String score(String[] tokens, int first, int last, DecisionValues result) {
+        AssertionModel current = model.get();
+        PredictionBuffers buffers = predictionBuffers.get();
+        IndexFeatureSink sink = getIndexSink(current, buffers);
+        buffers.span.setPair(first, last);
+        current.getFeatureExtractor().extractFeatures(tokens, buffers.span, FeatureScope.ALL, sink);
+        return getLabelName(current.getDecoder().decode(sink.getIndexBuffer(), sink.size(), null, result));
+    }
+
+    /**
+     * Returns the name of an assertion class from its LIBLINEAR label
+     */
+    public static String getLabelName(int label) {
+        return EnumUtil.getField(label-1, AssertTargetClass.class).name().toLowerCase();
+    }
+
+    /**
+     * Returns the feature indices of a concept, as given to the decoder
+     */
+    int[] getFeatureIndices(String sentence, int first, int last) {
+        AssertionModel current = model.get();
+        PredictionBuffers buffers = predictionBuffers.get();
+        IndexFeatureSink sink = getIndexSink(current, buffers);
+        buffers.span.setPair(first, last);
+        current.getFeatureExtractor().extractFeatures(sentence, buffers.span, sink);
+        return sink.getFeatureIndices();
     }
 
-    private String predictWithFeatures(List<String> features) {
-        int[] featureIdxs = featureManager.getFeatureIndices(alph, features);
-        int maxClassIdx = decoder.decode(featureIdxs);
-        return EnumUtil.getField(maxClassIdx-1, AssertTargetClass.class).name().toLowerCase();
+    /**
+     * Returns the feature index sink of the calling thread for a model, reset
+     * for a new instance
+     */
+    private IndexFeatureSink getIndexSink(AssertionModel current, PredictionBuffers buffers) {
+        TypedFeatureLookup lookup = current.getFeatureLookup();
+        if (buffers.lookup != lookup) {
+            buffers.sink = featureManager.getIndexSink(lookup, buffers.indices);
+            buffers.lookup = lookup;
+        } else {
+            buffers.sink.reset();
+        }
+        return buffers.sink;
     }
 }
@@ -0,0 +1,171 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+import name.adibejan.learning.features.TypedFeatureLookup;
+import name.adibejan.util.Alphabet;
+import name.adibejan.util.AlphabetLookup;
+import name.adibejan.util.BinaryAlphabet;
+import name.adibejan.util.Config;
+import name.adibejan.util.DoubleArrayTrieAlphabet;
+import name.adibejan.util.HashingAlphabet;
+import name.adibejan.util.PerfectHashAlphabet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable bundle of the resources a prediction needs: the decoder, the
+ * feature alphabet and the feature extractor with its signal lists. A new
+ * bundle is loaded as a whole and swapped in by <code>AssertionClassifier</code>.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class AssertionModel {
+    private final LibLinearDecoder decoder;
+    private final AlphabetLookup<String> alph;
+    private final TypedFeatureLookup featureLookup;
+    private final LexFeatureExtractor featureExtractor;
+    private final long loadMillis;
+
+    private AssertionModel(LibLinearDecoder decoder, AlphabetLookup<String> alph, LexFeatureExtractor featureExtractor,
+            long loadMillis) {
+        this.decoder = decoder;
+        this.alph = alph;
+        this.featureLookup = new TypedFeatureLookup(alph, AssertConfig.featuresEnum);
+        this.featureExtractor = featureExtractor;
+        this.loadMillis = loadMillis;
+    }
+
+    /**
+     * Loads the model, alphabet and signal lists configured under a resource directory
+     */
+    public static AssertionModel load(String resources, WeightStorage storage) {
+        long start = System.nanoTime();
+        LexFeatureExtractor featureExtractor = new LexFeatureExtractor(
+                FeaturePlan.compile(AssertConfig.featuresMask, AssertConfig.getFeaturesFilter()));
+        featureExtractor.loadSignals(resources);
+        LibLinearDecoder decoder = new LibLinearDecoder(resources + Config.getP("run.learn.model_restrict"), storage);
+        AlphabetLookup<String> alph = loadAlphabet(resources + Config.getP("run.learn.alphabet_restrict"), storage);
+        return new AssertionModel(decoder, alph, featureExtractor, (System.nanoTime() - start) / 1000000);
+    }
+
+    /**
+     * Loads a binary alphabet (mapped along with a mapped model), a perfect hash
+     * alphabet, a trie alphabet, a hashing alphabet (feature hashing, no strings)
+     * or falls back to a serialized alphabet, which is frozen after loading
+     */
+    private static AlphabetLookup<String> loadAlphabet(String path, WeightStorage storage) {
+        try {
+            if (HashingAlphabet.isHashingAlphabetFile(path))
+                return HashingAlphabet.load(path);
+            if (PerfectHashAlphabet.isPerfectHashAlphabetFile(path))
+                return PerfectHashAlphabet.load(path);
+            if (DoubleArrayTrieAlphabet.isTrieAlphabetFile(path))
+                return DoubleArrayTrieAlphabet.load(path);
+            if (!BinaryAlphabet.isBinaryAlphabetFile(path))
+                return Alphabet.<String>load(path).freeze();
+            return storage == WeightStorage.MAPPED ? BinaryAlphabet.map(path) : BinaryAlphabet.load(path);
+        } catch (IOException ioe) {
+            System.out.println("Error while loading the alphabet [" + path + "]");
+            ioe.printStackTrace();
+            return new Alphabet<String>("empty").freeze();
+        }
+    }
+
+    /**
+     * Returns the files this bundle is loaded from (the cue phrase file only
+     * when it is configured)
+     */
+    public static List<String> getResourcePaths(String resources) {
+        List<String> paths = new ArrayList<String>(Arrays.asList(resources + Config.getP("run.learn.model_restrict"),
+                resources + Config.getP("run.learn.alphabet_restrict"),
+                resources + Config.getP("path.bionegsignals"),
+                resources + Config.getP("path.kinshipsignals")));
+        if (Config.getP("path.specialcues") != null)
+            paths.add(resources + Config.getP("path.specialcues"));
+        return paths;
+    }
+
+    /**
+     * Checks that every resource of the bundle was actually read (the loaders
+     * report their errors and leave empty structures behind) and that the
+     * model and the alphabet belong together: the model has one feature per
+     * alphabet item (index 0 is the default alphabet value), or one more when
+     * the bias was counted as a feature. The reason of a rejection is printed.
+     */
+    public boolean isValid() {
+        if (decoder.getWeights() == null) {
+            System.out.println("The model weights were not loaded");
+            return false;
+        }
+        if (alph.getSize() <= 1) {
+            System.out.println("The alphabet was not loaded");
+            return false;
+        }
+        int featureCount = decoder.getFeatureCount();
+        int alphFeatureCount = alph.getSize() - 1;
+        if (featureCount != alphFeatureCount && !(decoder.getBias() >= 0 && featureCount == alphFeatureCount + 1)) {
+            System.out.println("The model (nr_feature " + featureCount + ") does not match the alphabet (" + alphFeatureCount
+                    + " features)");
+            return false;
+        }
+        if (!featureExtractor.isLoaded()) {
+            System.out.println("The signal lists or the cue phrases were not loaded");
+            return false;
+        }
+        return true;
+    }
+
+    public LibLinearDecoder getDecoder() {
+        return decoder;
+    }
+
+    /**
+     * Returns the read-only feature alphabet (unknown features are not added)
+     */
+    public AlphabetLookup<String> getAlphabet() {
+        return alph;
+    }
+
+    /**
+     * Returns the lookup of feature indices by feature type and value
+     */
+    public TypedFeatureLookup getFeatureLookup() {
+        return featureLookup;
+    }
+
+    public LexFeatureExtractor getFeatureExtractor() {
+        return featureExtractor;
+    }
+
+    /**
+     * Returns the time it took to load this bundle
+     */
+    public long getLoadMillis() {
+        return loadMillis;
+    }
+}
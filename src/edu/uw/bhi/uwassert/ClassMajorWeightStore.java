@@ -0,0 +1,72 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+/**
+ * On-heap weights kept as one array per class (the original decoder layout)
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class ClassMajorWeightStore extends WeightStore {
+    private double[][] weightsByClass;
+
+    public ClassMajorWeightStore(double[][] weightsByClass) {
+        super(weightsByClass.length, weightsByClass.length == 0 ? 0 : weightsByClass[0].length);
+        this.weightsByClass = weightsByClass;
+    }
+
+    /**
+     * Builds the store from feature-major rows (the order of the model files)
+     */
+    public static ClassMajorWeightStore fromRows(double[] rows, int classCount, int rowCount) {
+        double[][] weights = new double[classCount][rowCount];
+        for (int featIdx = 0, k = 0; featIdx < rowCount; featIdx++) {
+            for (int i = 0; i < classCount; i++, k++) {
+                weights[i][featIdx] = rows[k];
+            }
+        }
+        return new ClassMajorWeightStore(weights);
+    }
+
+    public double get(int row, int classIdx) {
+        return weightsByClass[classIdx][row];
+    }
+
+    public long getWeightBytes() {
+        return 8L * classCount * rowCount;
+    }
+
+    public void accumulate(int[] featureIdxs, int from, int to, int featureCount, double[] decValues, int decOffset) {
+        for (int j = from; j < to; j++) {
+            int featIdx = featureIdxs[j];
+
+            // The dimension of testing data may exceed that of training
+            if (featIdx <= featureCount) {
+                for (int i = 0; i < classCount; i++) {
+                    decValues[decOffset + i] += weightsByClass[i][featIdx-1];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+import name.adibejan.util.IntPair;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that the multi-concept predictions (sentence features scored once per
+ * sentence) give the same labels as the single-concept predictions (all the
+ * features of a concept scored in one pass). Every span of up to
+ * <code>maxLength</code> whitespace tokens of every sentence is a concept; both
+ * the pretokenized and the text entry points are checked. Run it with a
+ * hashing alphabet configured: the collisions between the sentence and the
+ * concept features are where the two paths would drift apart.
+ *
+ * Usage: java -DCONFIGFILE=... -DASSERTRESOURCES=... edu.uw.bhi.uwassert.ConceptBatchCheck sentences.txt [maxLength]
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class ConceptBatchCheck {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: please, specify a file with one sentence per line and optionally the maximum concept length.");
+            return;
+        }
+        int maxLength = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        AssertionClassifier classifier = new AssertionClassifier();
+        System.out.println("alphabet: " + classifier.getModel().getAlphabet().getClass().getSimpleName());
+
+        int concepts = 0;
+        int tokenMismatches = 0;
+        int textMismatches = 0;
+        BufferedReader input = null;
+        try {
+            input = new BufferedReader(new InputStreamReader(new FileInputStream(args[0]), "UTF-8"));
+            String line = null;
+            while ((line = input.readLine()) != null) {
+                String sentence = line.trim();
+                if (sentence.length() == 0)
+                    continue;
+                String[] toks = sentence.split("\\s+");
+                List<IntPair> spans = new ArrayList<IntPair>();
+                for (int i = 0; i < toks.length; i++)
+                    for (int j = i; j < Math.min(toks.length, i + maxLength); j++)
+                        spans.add(new IntPair(i, j));
+
+                List<String> tokenLabels = classifier.predict(toks, spans);
+                List<String> textLabels = classifier.predict(sentence, spans);
+                for (int k = 0; k < spans.size(); k++) {
+                    IntPair span = spans.get(k);
+                    if (!tokenLabels.get(k).equals(classifier.predict(toks, span.getFirst(), span.getSecond()))) {
+                        tokenMismatches++;
+                        System.out.println("tokens " + span + ": " + sentence);
+                    }
+                    if (!textLabels.get(k).equals(classifier.predict(sentence, span.getFirst(), span.getSecond()))) {
+                        textMismatches++;
+                        System.out.println("text " + span + ": " + sentence);
+                    }
+                }
+                concepts += spans.size();
+            }
+        } finally {
+            if (input != null)
+                input.close();
+        }
+        System.out.println(String.format("concepts: %d token mismatches: %d text mismatches: %d", concepts,
+                tokenMismatches, textMismatches));
+    }
+}
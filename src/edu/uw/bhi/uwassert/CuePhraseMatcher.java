@@ -0,0 +1,190 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+import edu.uw.bhi.uwassert.FeaturePlan.Stage;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.lang.System.out;
+
+/**
+ * Cue phrases of the *_SPECIAL feature templates compiled into two token
+ * tries anchored at the concept boundaries: the phrases that must end right
+ * before the concept are stored with their tokens reversed and are walked
+ * from the token left of the concept backwards, the phrases that must start
+ * right after the concept are walked forwards from the token right of the
+ * concept. A match is one bounded walk per direction, whatever the number of
+ * phrases.
+ *
+ * The cue file has one phrase per line: <code>template left|right tokens</code>
+ * (e.g. <code>ABSENT_SPECIAL left negative for</code>); the tokens are matched
+ * against the lowercase tokens of the sentence. The cue phrases of the
+ * classifier are bundled with it (<code>special-cues</code> next to this
+ * class) and can be replaced by a file set with <code>path.specialcues</code>.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class CuePhraseMatcher {
+    public static final String DEFAULT_CUES = "special-cues";
+
+    private final Node left = new Node();
+    private final Node right = new Node();
+    private int size;
+
+    private static class Node {
+        Map<String, Node> children;
+        long stages; /* the templates (as stage bits) of the phrases ending here */
+
+        Node child(String tok) {
+            return children == null ? null : children.get(tok);
+        }
+
+        Node addChild(String tok) {
+            if (children == null)
+                children = new HashMap<String, Node>(4);
+            Node child = children.get(tok);
+            if (child == null) {
+                child = new Node();
+                children.put(tok, child);
+            }
+            return child;
+        }
+    }
+
+    /**
+     * Loads a cue file; the lines that are not valid are reported and skipped
+     */
+    public static CuePhraseMatcher load(String filePath) {
+        CuePhraseMatcher matcher = new CuePhraseMatcher();
+        try {
+            matcher.read(new FileInputStream(filePath));
+        } catch (FileNotFoundException ex) {
+            ex.printStackTrace();
+        }
+        return matcher;
+    }
+
+    /**
+     * Loads the cue phrases bundled with the classifier
+     */
+    public static CuePhraseMatcher loadDefault() {
+        CuePhraseMatcher matcher = new CuePhraseMatcher();
+        InputStream in = CuePhraseMatcher.class.getResourceAsStream(DEFAULT_CUES);
+        if (in == null)
+            out.println("The bundled cue phrases [" + DEFAULT_CUES + "] are missing from the classpath");
+        else
+            matcher.read(in);
+        return matcher;
+    }
+
+    /**
+     * Reads the cue lines of a stream, which is closed afterwards
+     */
+    private void read(InputStream in) {
+        BufferedReader input = null;
+        try {
+            input = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+            String line = null;
+            while ((line = input.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0)
+                    continue;
+                String[] toks = line.split("\\s+");
+                if (toks.length < 3 || !(toks[1].equals("left") || toks[1].equals("right"))) {
+                    out.println("Not valid cue line [" + line + "]");
+                    continue;
+                }
+                Stage stage = null;
+                try {
+                    stage = Stage.valueOf(toks[0]);
+                } catch (IllegalArgumentException iae) {
+                    out.println("Unknown cue template [" + toks[0] + "] in line [" + line + "]");
+                    continue;
+                }
+                String[] phrase = new String[toks.length - 2];
+                for (int i = 0; i < phrase.length; i++)
+                    phrase[i] = toks[i + 2].toLowerCase();
+                add(stage, toks[1].equals("left"), phrase);
+            }
+        } catch (IOException ioe) {
+            out.println("Error in reading the file: " + ioe.getMessage());
+            ioe.printStackTrace();
+        } finally {
+            try {
+                if (input != null)
+                    input.close();
+            } catch (IOException ioe) {
+                out.println("Error in closing the file: " + ioe.getMessage());
+                ioe.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Adds a cue phrase (lowercase tokens)
+     *
+     * @param leftOfConcept whether the phrase ends right before the concept
+     *                      (otherwise it starts right after the concept)
+     */
+    public void add(Stage stage, boolean leftOfConcept, String[] phrase) {
+        Node node = leftOfConcept ? left : right;
+        for (int i = 0; i < phrase.length; i++)
+            node = node.addChild(phrase[leftOfConcept ? phrase.length - 1 - i : i]);
+        node.stages |= 1L << stage.ordinal();
+        size++;
+    }
+
+    /**
+     * Returns the number of cue phrases
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Matches the cue phrases around a concept
+     *
+     * @param lowerToks the lowercase tokens of the sentence
+     * @return the templates (bit <code>1L &lt;&lt; stage.ordinal()</code>) of
+     *         the matched phrases
+     */
+    public long match(String[] lowerToks, int conceptStart, int conceptEnd) {
+        long stages = 0;
+        Node node = left;
+        for (int i = conceptStart - 1; i >= 0 && (node = node.child(lowerToks[i])) != null; i--)
+            stages |= node.stages;
+        node = right;
+        for (int i = conceptEnd + 1; i < lowerToks.length && (node = node.child(lowerToks[i])) != null; i++)
+            stages |= node.stages;
+        return stages;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+/**
+ * Reusable, caller-owned result of <code>LibLinearDecoder.decode</code>: the
+ * decision value of every class, the winning class and the margin between the
+ * best and the second best decision values (a cheap confidence). Reusing one
+ * object per thread keeps the decoding free of per-call garbage; the feature
+ * extraction that precedes it (tokenization, sentence analyses) still
+ * allocates.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class DecisionValues {
+    double[] values;
+    int[] labels;
+    int maxIdx;
+    double margin;
+
+    public DecisionValues() {
+        values = new double[0];
+    }
+
+    /**
+     * Returns the number of classes
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the decision value of the i-th class (in the model label order)
+     */
+    public double getValue(int i) {
+        return values[i];
+    }
+
+    /**
+     * Returns the LIBLINEAR label of the i-th class
+     */
+    public int getLabel(int i) {
+        return labels[i];
+    }
+
+    /**
+     * Returns the position of the winning class
+     */
+    public int getMaxIdx() {
+        return maxIdx;
+    }
+
+    /**
+     * Returns the LIBLINEAR label of the winning class
+     */
+    public int getLabel() {
+        return labels[maxIdx];
+    }
+
+    /**
+     * Returns the difference between the best and the second best decision values
+     */
+    public double getMargin() {
+        return margin;
+    }
+}
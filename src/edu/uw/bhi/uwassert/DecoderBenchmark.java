@@ -0,0 +1,177 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Micro-benchmark of <code>LibLinearDecoder.decode</code> for the available
+ * weight layouts. With a sentence file (one sentence per line) the instances are
+ * the feature indices that the classifier decodes (see
+ * <code>IndexFeatureSink</code>) for every concept span of up to three tokens; this needs the
+ * CONFIGFILE and ASSERTRESOURCES properties. Otherwise the instances are random
+ * feature id arrays over the whole model with a few frequent low ids shared by
+ * every instance, which mimics the sentence-level features (e.g.
+ * NEGEX#affirmed) that fire for most concepts.
+ *
+ * The decode call site becomes megamorphic once several layouts have run in
+ * the same JVM, so for comparable numbers run one layout per JVM with
+ * -Dstorage=name (e.g. -Dstorage=vector, which also needs
+ * --add-modules jdk.incubator.vector).
+ *
+ * Usage: java edu.uw.bhi.uwassert.DecoderBenchmark model [instances|sentences.txt] [rounds]
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class DecoderBenchmark {
+    private static final int FEATURES_PER_INSTANCE = 60;
+    private static final int SHARED_FEATURES = 8;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: please, specify a model file (text or binary), and optionally the number of instances (or a sentence file) and rounds.");
+            return;
+        }
+        String modelPath = args[0];
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        LibLinearDecoder reference = new LibLinearDecoder(modelPath, WeightStorage.HEAP);
+        int[][] instances = null;
+        if (args.length > 1 && new File(args[1]).isFile())
+            instances = extractedInstances(args[1]);
+        else
+            instances = randomInstances(reference.getFeatureCount(), args.length > 1 ? Integer.parseInt(args[1]) : 20000,
+                    new Random(17));
+        int instanceCount = instances.length;
+        int[] expected = decodeAll(reference, instances);
+
+        String only = System.getProperty("storage");
+        for (WeightStorage storage : WeightStorage.values()) {
+            if (only != null && !storage.name().equalsIgnoreCase(only))
+                continue;
+            if (storage == WeightStorage.MAPPED && !LibLinearDecoder.isBinaryModelFile(modelPath))
+                continue;
+            LibLinearDecoder decoder = new LibLinearDecoder(modelPath, storage);
+            int[] labels = decodeAll(decoder, instances);
+            int disagreements = 0;
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] != expected[i])
+                    disagreements++;
+            }
+
+            for (int r = 0; r < rounds; r++) { // warmup
+                decodeAll(decoder, instances);
+            }
+            long best = Long.MAX_VALUE;
+            for (int r = 0; r < rounds; r++) {
+                long start = System.nanoTime();
+                decodeAll(decoder, instances);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.println(String.format("%-14s %8.1f ns/instance  disagreements: %d", storage.name().toLowerCase(),
+                    (double) best / instanceCount, disagreements));
+
+            // The same instances packed as CSR for decodeBatch
+            int[] offsets = new int[instanceCount + 1];
+            for (int i = 0; i < instanceCount; i++) {
+                offsets[i + 1] = offsets[i] + instances[i].length;
+            }
+            int[] indices = new int[offsets[instanceCount]];
+            for (int i = 0; i < instanceCount; i++) {
+                System.arraycopy(instances[i], 0, indices, offsets[i], instances[i].length);
+            }
+            double[] scores = new double[instanceCount * decoder.getClassCount()];
+            decoder.decodeBatch(offsets, indices, labels, scores);
+            disagreements = 0;
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] != expected[i])
+                    disagreements++;
+            }
+            for (int r = 0; r < rounds; r++) { // warmup
+                decoder.decodeBatch(offsets, indices, labels, scores);
+            }
+            best = Long.MAX_VALUE;
+            for (int r = 0; r < rounds; r++) {
+                long start = System.nanoTime();
+                decoder.decodeBatch(offsets, indices, labels, scores);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.println(String.format("%-14s %8.1f ns/instance  disagreements: %d", "  batch",
+                    (double) best / instanceCount, disagreements));
+        }
+    }
+
+    static int[] decodeAll(LibLinearDecoder decoder, int[][] instances) {
+        int[] labels = new int[instances.length];
+        for (int i = 0; i < instances.length; i++) {
+            labels[i] = decoder.decode(instances[i]);
+        }
+        return labels;
+    }
+
+    static int[][] extractedInstances(String sentencesPath) throws IOException {
+        AssertionClassifier classifier = new AssertionClassifier();
+        List<int[]> instances = new ArrayList<int[]>();
+        BufferedReader input = new BufferedReader(new InputStreamReader(new FileInputStream(sentencesPath), "UTF-8"));
+        try {
+            String line = null;
+            while ((line = input.readLine()) != null) {
+                if (line.trim().length() == 0)
+                    continue;
+                int tokenCount = line.trim().split("\\s+").length;
+                for (int first = 0; first < tokenCount; first++) {
+                    for (int last = first; last < Math.min(tokenCount, first + 3); last++) {
+                        instances.add(classifier.getFeatureIndices(line, first, last));
+                    }
+                }
+            }
+        } finally {
+            input.close();
+        }
+        return instances.toArray(new int[instances.size()][]);
+    }
+
+    static int[][] randomInstances(int featureCount, int instanceCount, Random random) {
+        int[] shared = new int[SHARED_FEATURES];
+        for (int k = 0; k < SHARED_FEATURES; k++) {
+            shared[k] = 1 + random.nextInt(Math.min(featureCount, 100));
+        }
+        int[][] instances = new int[instanceCount][];
+        for (int i = 0; i < instanceCount; i++) {
+            int[] instance = new int[FEATURES_PER_INSTANCE];
+            for (int k = 0; k < FEATURES_PER_INSTANCE; k++) {
+                instance[k] = k < SHARED_FEATURES ? shared[k] : 1 + random.nextInt(featureCount);
+            }
+            instances[i] = instance;
+        }
+        return instances;
+    }
+}
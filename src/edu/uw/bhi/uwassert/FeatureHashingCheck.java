@@ -0,0 +1,156 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+import name.adibejan.util.Alphabet;
+import name.adibejan.util.FrozenAlphabet;
+import name.adibejan.util.HashingAlphabet;
+import name.adibejan.util.IntSetBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reports what feature hashing costs against the alphabet-based model. For
+ * every number of hash bits, the alphabet features are hashed with
+ * <code>HashingAlphabet</code> and the tool reports the collision rate (the
+ * share of features that share their index with another feature, over all
+ * features and over the features with non-zero weights). The model is folded
+ * into the hashed index space by summing the weight rows of the features that
+ * collide (the bias row, if any, is kept as is), and the held-out instances
+ * (LIBLINEAR format, alphabet indices) are decoded with it: the agreement with
+ * the original model and the accuracy are reported. As at inference time, the
+ * features of an instance that collide are counted once. A model trained on hashed features (see
+ * <code>DynamicFeatureManager.transformFeatureFile</code>) learns around the
+ * collisions, so the folded accuracy is a lower bound for it.
+ *
+ * With a single number of bits and an output prefix, the hashing alphabet and
+ * the folded binary model are written as <code>prefix.hash</code> and
+ * <code>prefix.model.bin</code>.
+ *
+ * Usage: java edu.uw.bhi.uwassert.FeatureHashingCheck alphabet model heldout.dat bits[,bits...] [seed] [prefix]
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class FeatureHashingCheck {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.out.println("Usage: please, specify an alphabet, a model file, a held-out feature file in LIBLINEAR format, the hash bits and optionally the seed and an output prefix.");
+            return;
+        }
+        FrozenAlphabet<String> alph = Alphabet.<String>load(args[0]).freeze();
+        LibLinearDecoder model = new LibLinearDecoder(args[1], WeightStorage.HEAP);
+        List<int[]> instances = new ArrayList<int[]>();
+        List<Integer> gold = new ArrayList<Integer>();
+        PrecisionCheck.readFeatureFile(args[2], instances, gold);
+        String[] bitsList = args[3].split(",");
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 0;
+
+        int classCount = model.getClassCount();
+        int featureCount = Math.min(model.getFeatureCount(), alph.getSize() - 1);
+        double[] rows = model.getRows();
+        /* the bias row (if any) follows the feature rows */
+        int biasOffset = model.getFeatureCount() * classCount;
+        boolean[] weighted = new boolean[featureCount + 1];
+        for (int featIdx = 1; featIdx <= featureCount; featIdx++) {
+            for (int i = 0; i < classCount; i++) {
+                if (rows[(featIdx - 1) * classCount + i] != 0)
+                    weighted[featIdx] = true;
+            }
+        }
+
+        int[] expected = new int[instances.size()];
+        int correct = 0;
+        for (int k = 0; k < expected.length; k++) {
+            expected[k] = model.decode(instances.get(k));
+            if (expected[k] == gold.get(k))
+                correct++;
+        }
+        System.out.println(String.format("features: %d instances: %d alphabet model accuracy: %.4f%%", featureCount,
+                expected.length, expected.length == 0 ? 0 : 100.0 * correct / expected.length));
+
+        for (String bitsRep : bitsList) {
+            HashingAlphabet hashing = new HashingAlphabet(Integer.parseInt(bitsRep.trim()), seed);
+            int hashedCount = hashing.getSize() - 1;
+            int[] hashedIdxs = new int[featureCount + 1];
+            int[] bucketCounts = new int[hashedCount + 1];
+            int[] weightedCounts = new int[hashedCount + 1];
+            double[] hashedRows = new double[hashedCount * classCount + rows.length - biasOffset];
+            System.arraycopy(rows, biasOffset, hashedRows, hashedCount * classCount, rows.length - biasOffset);
+            for (int featIdx = 1; featIdx <= featureCount; featIdx++) {
+                int hashedIdx = hashing.getIndex(alph.getItem(featIdx));
+                hashedIdxs[featIdx] = hashedIdx;
+                bucketCounts[hashedIdx]++;
+                if (weighted[featIdx])
+                    weightedCounts[hashedIdx]++;
+                for (int i = 0; i < classCount; i++) {
+                    hashedRows[(hashedIdx - 1) * classCount + i] += rows[(featIdx - 1) * classCount + i];
+                }
+            }
+            int collided = 0;
+            int weightedCollided = 0;
+            int weightedTotal = 0;
+            for (int featIdx = 1; featIdx <= featureCount; featIdx++) {
+                if (bucketCounts[hashedIdxs[featIdx]] > 1)
+                    collided++;
+                if (weighted[featIdx]) {
+                    weightedTotal++;
+                    if (weightedCounts[hashedIdxs[featIdx]] > 1)
+                        weightedCollided++;
+                }
+            }
+
+            LibLinearDecoder hashedModel = model.copyWithRows(hashedRows, hashedCount, WeightStorage.HEAP);
+            IntSetBuffer hashedInstance = new IntSetBuffer();
+            int agree = 0;
+            correct = 0;
+            for (int k = 0; k < expected.length; k++) {
+                hashedInstance.clear();
+                for (int featIdx : instances.get(k)) {
+                    if (featIdx <= featureCount)
+                        hashedInstance.add(hashedIdxs[featIdx]);
+                }
+                int label = hashedModel.decode(hashedInstance.elements(), hashedInstance.size());
+                if (label == expected[k])
+                    agree++;
+                if (label == gold.get(k))
+                    correct++;
+            }
+            System.out.println(String.format(
+                    "bits: %2d indices: %8d collisions: %.2f%% (weighted features: %.2f%%) agreement: %.4f%% accuracy: %.4f%% weights: %d bytes",
+                    hashing.getBits(), hashedCount, 100.0 * collided / featureCount,
+                    weightedTotal == 0 ? 0 : 100.0 * weightedCollided / weightedTotal,
+                    expected.length == 0 ? 100.0 : 100.0 * agree / expected.length,
+                    expected.length == 0 ? 0 : 100.0 * correct / expected.length,
+                    hashedModel.getWeights().getWeightBytes()));
+
+            if (args.length > 5 && bitsList.length == 1) {
+                hashing.save(args[5] + ".hash");
+                hashedModel.saveBinaryModelFile(args[5] + ".model.bin");
+            }
+        }
+    }
+}
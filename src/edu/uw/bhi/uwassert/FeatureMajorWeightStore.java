@@ -0,0 +1,67 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+/**
+ * On-heap weights interleaved by feature: the class weights of feature id f
+ * are stored next to each other at <code>w[f * classCount + c]</code>, so one
+ * feature touches a single cache line instead of one line per class. Row 0
+ * (feature id 0, never emitted by the alphabet) is kept as padding.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class FeatureMajorWeightStore extends WeightStore {
+    private double[] w;
+
+    /**
+     * @param rows the weights in the feature-major order of the model files
+     */
+    public FeatureMajorWeightStore(double[] rows, int classCount, int rowCount) {
+        super(classCount, rowCount);
+        w = new double[(rowCount + 1) * classCount];
+        System.arraycopy(rows, 0, w, classCount, rowCount * classCount);
+    }
+
+    public double get(int row, int classIdx) {
+        return w[(row + 1) * classCount + classIdx];
+    }
+
+    public long getWeightBytes() {
+        return 8L * w.length;
+    }
+
+    public void accumulate(int[] featureIdxs, int from, int to, int featureCount, double[] decValues, int decOffset) {
+        final int classCount = this.classCount;
+        final double[] w = this.w;
+        for (int j = from; j < to; j++) {
+            int featIdx = featureIdxs[j];
+            if (featIdx <= featureCount) {
+                int offset = featIdx * classCount;
+                for (int i = 0; i < classCount; i++) {
+                    decValues[decOffset + i] += w[offset + i];
+                }
+            }
+        }
+    }
+}
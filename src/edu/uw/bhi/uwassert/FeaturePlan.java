@@ -0,0 +1,162 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+import name.adibejan.util.dynenum.DynamicEnum;
+import name.adibejan.util.dynenum.DynamicEnumSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feature selection compiled once for a feature extractor: the ordered array
+ * of the extraction stages (feature templates) selected by the feature mask,
+ * and the ordinals of the feature types they emit. The extractor runs the
+ * stages in order without looking up the mask for every instance, and the
+ * stages that are not selected are not run at all.
+ *
+ * When a type filter is given, a stage is also dropped if none of the types it
+ * emits passes the filter (inference); the training extractor keeps every
+ * selected stage, since its feature files are filtered later.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class FeaturePlan {
+
+    /**
+     * The extraction stages, in extraction order. A stage is selected by the
+     * mask name of its template and emits the feature type of the same name,
+     * except the NEGPREFIX stages, which emit one type per negation prefix
+     * (<code>NEGPREFIX__ab</code>, ...).
+     */
+    public enum Stage {
+        NEGSIGNALCLOSESTLEFT_COMMARESTRICTED(false),
+        SIGNALCLOSESTLEFT_WINDOWSIZE(false),
+        STEM(true),
+        QMARK_RIGHT(false),
+        PRESENT_SPECIAL(false),
+        ABSENT_SPECIAL(false),
+        POSSIBLE_SPECIAL(false),
+        POSSIBLE_SPECIAL2(false),
+        HAS_KINSHIP_INSENTENCE(true),
+        CONCEPTSTEMEXPRESSION(false),
+        NEGPREFIX(false),
+        NEGPREFIX_LEFTWINDOW(false),
+        NEGPREFIX_RIGHTWINDOW(false),
+        WORDLEFT1_UNCASE(false),
+        STEMLEFT1_UNCASE(false),
+        WORDLEFT2_UNCASE(false),
+        STEMTRIGRAMLEFT_UNCASE(false),
+        NEGEX(false),
+        NEGEX_W6(false),
+        CONTEXT_EXPERIENCER(true),
+        CONTEXT_TEMPORALITY_W6(false),
+        WORD_POSITION(false);
+
+        private final boolean sentenceLevel;
+
+        private Stage(boolean sentenceLevel) {
+            this.sentenceLevel = sentenceLevel;
+        }
+
+        /**
+         * Tests whether the stage only depends on the sentence (not on the concept)
+         */
+        public boolean isSentenceLevel() {
+            return sentenceLevel;
+        }
+
+        /**
+         * Tests whether the stage emits one feature type per negation prefix
+         */
+        public boolean isPrefixed() {
+            return this == NEGPREFIX || this == NEGPREFIX_LEFTWINDOW || this == NEGPREFIX_RIGHTWINDOW;
+        }
+    }
+
+    private final Stage[] stages;
+    private final int[] typeOrdinals;
+    private final int[][] prefixTypeOrdinals;
+
+    private FeaturePlan(Stage[] stages, int[] typeOrdinals, int[][] prefixTypeOrdinals) {
+        this.stages = stages;
+        this.typeOrdinals = typeOrdinals;
+        this.prefixTypeOrdinals = prefixTypeOrdinals;
+    }
+
+    /**
+     * Compiles the stages selected by a feature mask
+     *
+     * @param filter the feature types kept downstream, or null to keep every
+     *               selected stage
+     */
+    public static FeaturePlan compile(DynamicEnumSet<?> mask, DynamicEnumSet<?> filter) {
+        DynamicEnum featureTypes = AssertConfig.featuresEnum;
+        List<String> negPrefixes = LexFeatureExtractor.negPrefixes;
+        Stage[] all = Stage.values();
+        List<Stage> selected = new ArrayList<Stage>();
+        int[] typeOrdinals = new int[all.length];
+        int[][] prefixTypeOrdinals = new int[all.length][];
+
+        for (Stage stage : all) {
+            typeOrdinals[stage.ordinal()] = featureTypes.get(stage.name()).ordinal();
+            boolean emitted = filter == null || filter.contains(stage.name());
+            if (stage.isPrefixed()) {
+                int[] ordinals = new int[negPrefixes.size()];
+                emitted = filter == null;
+                for (int i = 0; i < ordinals.length; i++) {
+                    String typeName = stage.name() + "__" + negPrefixes.get(i);
+                    ordinals[i] = featureTypes.get(typeName).ordinal();
+                    emitted |= filter != null && filter.contains(typeName);
+                }
+                prefixTypeOrdinals[stage.ordinal()] = ordinals;
+            }
+            if (mask.contains(stage.name()) && emitted)
+                selected.add(stage);
+        }
+        return new FeaturePlan(selected.toArray(new Stage[selected.size()]), typeOrdinals, prefixTypeOrdinals);
+    }
+
+    /**
+     * Returns the selected stages, in extraction order
+     */
+    public Stage[] getStages() {
+        return stages;
+    }
+
+    /**
+     * Returns the ordinal of the feature type emitted by a stage
+     */
+    public int getTypeOrdinal(Stage stage) {
+        return typeOrdinals[stage.ordinal()];
+    }
+
+    /**
+     * Returns the ordinal of the feature type emitted by a NEGPREFIX stage for
+     * the negation prefix of a given index in <code>LexFeatureExtractor.negPrefixes</code>
+     */
+    public int getTypeOrdinal(Stage stage, int negPrefixIdx) {
+        return prefixTypeOrdinals[stage.ordinal()][negPrefixIdx];
+    }
+}
@@ -0,0 +1,68 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+/**
+ * On-heap single-precision weights in the feature-major layout of
+ * <code>FeatureMajorWeightStore</code>. Half the memory of the double layout;
+ * the scores are still accumulated in double precision.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class FloatWeightStore extends WeightStore {
+    private float[] w;
+
+    /**
+     * @param rows the weights in the feature-major order of the model files
+     */
+    public FloatWeightStore(double[] rows, int classCount, int rowCount) {
+        super(classCount, rowCount);
+        w = new float[(rowCount + 1) * classCount];
+        for (int k = 0; k < rowCount * classCount; k++) {
+            w[classCount + k] = (float) rows[k];
+        }
+    }
+
+    public double get(int row, int classIdx) {
+        return w[(row + 1) * classCount + classIdx];
+    }
+
+    public long getWeightBytes() {
+        return 4L * w.length;
+    }
+
+    public void accumulate(int[] featureIdxs, int from, int to, int featureCount, double[] decValues, int decOffset) {
+        final int classCount = this.classCount;
+        final float[] w = this.w;
+        for (int j = from; j < to; j++) {
+            int featIdx = featureIdxs[j];
+            if (featIdx <= featureCount) {
+                int offset = featIdx * classCount;
+                for (int i = 0; i < classCount; i++) {
+                    decValues[decOffset + i] += w[offset + i];
+                }
+            }
+        }
+    }
+}
@@ -21,6 +21,9 @@
 
 package edu.uw.bhi.uwassert;
 
+import edu.uw.bhi.uwassert.FeaturePlan.Stage;
+import name.adibejan.learning.features.FeatureSink;
+import name.adibejan.learning.features.TextFeatureSink;
 import name.adibejan.string.StringUtil;
 import name.adibejan.string.Token;
 import name.adibejan.util.Config;
@@ -59,40 +62,129 @@ public class LexFeatureExtractor {
     public static List<String> negPrefixes = Arrays.asList("ab de di il im in ir re un no mel mal mis".split("\\s+"));
 
     private final int WINDOWSIZE = 5;
+    private final FeaturePlan plan;
+    private CuePhraseMatcher specialCues = new CuePhraseMatcher();
+    private SignalMatcher signalMatcher = new SignalMatcher();
+
+    /**
+     * Which feature templates to extract: the ones that only depend on the
+     * sentence, the ones that depend on the concept, or both
+     */
+    public enum FeatureScope {
+        ALL, SENTENCE, CONCEPT;
+    }
+
+    /**
+     * Builds an extractor of all the feature templates selected by the current
+     * feature mask (<code>AssertConfig.featuresMask</code>)
+     */
+    public LexFeatureExtractor() {
+        this(FeaturePlan.compile(AssertConfig.featuresMask, null));
+    }
+
+    /**
+     * Builds an extractor of the stages of a compiled feature plan
+     */
+    public LexFeatureExtractor(FeaturePlan plan) {
+        this.plan = plan;
+    }
 
     /**
      * Extracts features from a given text
      */
     public List<String> extractFeatures(String sentence, IntPair oConceptBoundaries) {
-        SentenceLevelResources resource = new SentenceLevelResources();
-        String pretokenized = sentence.trim().replaceAll("\\s+", " ");
-        String[] osentence = pretokenized.split("\\s+");
-        resource.toks = OpenNLP.tokenize(pretokenized);
+        List<IntPair> nConcepts = new ArrayList<IntPair>(1);
+        SentenceLevelResources resource = getSentenceResources(sentence, Collections.singletonList(oConceptBoundaries),
+                nConcepts);
+        return extractFeatures(getTestInstance(resource, nConcepts.get(0)), resource);
+    }
 
-        IntPair nConceptBoundaries = TextProcessor.getTokenIndexes(Arrays.asList(osentence),
-                Arrays.asList(resource.toks), oConceptBoundaries);
-        String conceptName = resource.getTokenSequence(nConceptBoundaries, " ");
-        AssertAnnotation instance = AssertAnnotation.getTestInstance(nConceptBoundaries, conceptName);
-        return extractFeatures(instance, resource);
+    /**
+     * Extracts features from a given text into a feature sink
+     */
+    public void extractFeatures(String sentence, IntPair oConceptBoundaries, FeatureSink sink) {
+        List<IntPair> nConcepts = new ArrayList<IntPair>(1);
+        SentenceLevelResources resource = getSentenceResources(sentence, Collections.singletonList(oConceptBoundaries),
+                nConcepts);
+        extractFeatures(resource, nConcepts.get(0), FeatureScope.ALL, sink);
     }
 
     /**
      * Extracts features from a given token sequence
      */
     public List<String> extractFeatures(String[] pretokenizedSentence, IntPair oConceptBoundaries) {
+        return extractFeatures(pretokenizedSentence, oConceptBoundaries, FeatureScope.ALL);
+    }
+
+    /**
+     * Extracts the features of the given scope from a given token sequence
+     */
+    public List<String> extractFeatures(String[] pretokenizedSentence, IntPair oConceptBoundaries, FeatureScope scope) {
+        SentenceLevelResources resource = getSentenceResources(pretokenizedSentence);
+        return extractFeatures(getTestInstance(resource, oConceptBoundaries), resource, scope);
+    }
+
+    /**
+     * Extracts the features of the given scope from a given token sequence into a feature sink
+     */
+    public void extractFeatures(String[] pretokenizedSentence, IntPair oConceptBoundaries, FeatureScope scope,
+            FeatureSink sink) {
+        extractFeatures(getSentenceResources(pretokenizedSentence), oConceptBoundaries, scope, sink);
+    }
+
+    /**
+     * Extracts the features of the given scope of a concept of an analyzed
+     * sentence into a feature sink. The sentence level analyses of the resources
+     * are computed once and shared by all the concepts of the sentence.
+     *
+     * @param conceptBoundaries the boundaries of the concept in the tokens of the resources
+     */
+    public void extractFeatures(SentenceLevelResources resource, IntPair conceptBoundaries, FeatureScope scope,
+            FeatureSink sink) {
+        extractFeatures(getTestInstance(resource, conceptBoundaries), resource, scope, sink);
+    }
+
+    /**
+     * Returns the resources of a token sequence
+     */
+    public SentenceLevelResources getSentenceResources(String[] pretokenizedSentence) {
         SentenceLevelResources resource = new SentenceLevelResources();
         resource.toks = pretokenizedSentence;
+        return resource;
+    }
+
+    /**
+     * Tokenizes a text once for several concepts and maps the concept boundaries
+     * (indices of whitespace tokens) to the new tokens
+     *
+     * @param nConcepts filled with the boundaries of the concepts in the new tokens
+     */
+    public SentenceLevelResources getSentenceResources(String sentence, List<IntPair> oConcepts,
+            List<IntPair> nConcepts) {
+        SentenceLevelResources resource = new SentenceLevelResources();
+        String pretokenized = sentence.trim().replaceAll("\\s+", " ");
+        String[] osentence = pretokenized.split("\\s+");
+        resource.toks = OpenNLP.tokenize(pretokenized);
+
+        List<IntPair> indexes = TextProcessor.alignTokenIndexes(Arrays.asList(osentence), Arrays.asList(resource.toks));
+        for (IntPair oConceptBoundaries : oConcepts)
+            nConcepts.add(TextProcessor.getTokenIndexes(indexes, oConceptBoundaries));
+        return resource;
+    }
 
-        int first = oConceptBoundaries.getFirst();
-        int second = oConceptBoundaries.getSecond();
-        int lastTokIdx = pretokenizedSentence.length-1;
+    /**
+     * Builds the test instance of a concept of the tokens of the resources
+     */
+    private AssertAnnotation getTestInstance(SentenceLevelResources resource, IntPair conceptBoundaries) {
+        int first = conceptBoundaries.getFirst();
+        int second = conceptBoundaries.getSecond();
+        int lastTokIdx = resource.toks.length-1;
         if (first < 0|| first > lastTokIdx || second < 0 || second > lastTokIdx) {
             throw new InvalidParameterException("Concept boundary indicies must be within indices of the tokens");
         }
         
-        String conceptName = resource.getTokenSequence(oConceptBoundaries, " ");
-        AssertAnnotation instance = AssertAnnotation.getTestInstance(oConceptBoundaries, conceptName);
-        return extractFeatures(instance, resource);
+        String conceptName = resource.getTokenSequence(conceptBoundaries, " ");
+        return AssertAnnotation.getTestInstance(conceptBoundaries, conceptName);
     }
 
     /*
@@ -100,329 +192,245 @@ public class LexFeatureExtractor {
      * available
      */
     public List<String> extractFeatures(AssertAnnotation instance, SentenceLevelResources sentRes) {
+        return extractFeatures(instance, sentRes, FeatureScope.ALL);
+    }
 
-        String feature = null;
-        String digit7 = StringUtil.leftPad(1, 7, '0');
-        String prefix = digit7 + " " + instance.getAssertionValue();
+    /**
+     * Extracts the features of the given scope in the readable format
+     * (<code>id target feature_type#feature_value</code>)
+     */
+    public List<String> extractFeatures(AssertAnnotation instance, SentenceLevelResources sentRes, FeatureScope scope) {
+        TextFeatureSink sink = new TextFeatureSink(getInstancePrefix(instance), AssertConfig.featuresEnum);
+        extractFeatures(instance, sentRes, scope, sink);
+        return sink.getFeatures();
+    }
 
+    /**
+     * Extracts the features of the given scope. The SENTENCE features do not
+     * depend on the concept, so they can be extracted and scored once for all the
+     * concepts of a sentence; ALL = SENTENCE + CONCEPT. Only the stages of the
+     * compiled feature plan are run, in order.
+     */
+    public void extractFeatures(AssertAnnotation instance, SentenceLevelResources sentRes, FeatureScope scope,
+            FeatureSink sink) {
+
+        boolean flag = false;
+        boolean cuesMatched = false;
+        long cueMatches = 0;
+        StringBuilder builder = null;
         Concept concept = instance.getConcept();
         concept.testSameName(sentRes);
-        String sentFlat = TextProcessor.flatten(sentRes.toks, " ");
 
         int LIMIT_W6 = 7;
-        List<String> features = new ArrayList<String>();
-        StringBuilder builder_W6 = new StringBuilder();
-        for (int i = Math.max(0, concept.getStart() - LIMIT_W6); i < Math.min(sentRes.toks.length,
-                concept.getEnd() + LIMIT_W6); i++) {
-            builder_W6.append(sentRes.toks[i]);
-            builder_W6.append(" ");
-        }
-        String sentFlat_W6 = builder_W6.toString().trim();
-
-        IntPair closestSignalBefore = getClosestSignalBefore(sentRes.toks, concept.getBoundaries());
-        IntPair closestNegSignalBefore = getClosestNegSignalBefore(sentRes.toks, concept.getBoundaries());
-
-        if (AssertConfig.isSelected("NEGSIGNALCLOSESTLEFT_COMMARESTRICTED")) {
-            if (closestNegSignalBefore != null) {
-                int pos = -1;
-                for (int i = concept.getStart() - 1; i >= 0; i--)
-                    if (sentRes.toks[i].equals(",") || sentRes.toks[i].toLowerCase().equals("and")
-                            || sentRes.toks[i].toLowerCase().equals("or")) {
-                        pos = i;
-                        break;
+        int LIMIT_NEGPREFIX = 5;
+        String sentFlat_W6 = null;
+        IntPair closestSignalBefore = null;
+        IntPair closestNegSignalBefore = null;
+        String[] lowerToks = sentRes.getLowerTokens();
+        boolean[] puncts = sentRes.getPunctuationFlags();
+
+        for (Stage stage : plan.getStages()) {
+            if (stage.isSentenceLevel() ? scope == FeatureScope.CONCEPT : scope == FeatureScope.SENTENCE)
+                continue;
+
+            switch (stage) {
+            case NEGSIGNALCLOSESTLEFT_COMMARESTRICTED:
+                closestNegSignalBefore = getClosestNegSignalBefore(sentRes, concept.getBoundaries());
+                if (closestNegSignalBefore != null) {
+                    int pos = -1;
+                    for (int i = concept.getStart() - 1; i >= 0; i--)
+                        if (sentRes.toks[i].equals(",") || lowerToks[i].equals("and") || lowerToks[i].equals("or")) {
+                            pos = i;
+                            break;
+                        }
+                    if (pos != -1 && closestNegSignalBefore.getFirst() > pos) {
+                        sink.add(plan.getTypeOrdinal(stage), "true");
                     }
-                if (pos != -1 && closestNegSignalBefore.getFirst() > pos) {
-                    feature = prefix + " NEGSIGNALCLOSESTLEFT_COMMARESTRICTED#true";
-                    features.add(feature);
                 }
-            }
-        }
-
-        if (AssertConfig.isSelected("SIGNALCLOSESTLEFT_WINDOWSIZE")) {
-            if (closestSignalBefore != null) {
-                if (concept.getStart() - closestSignalBefore.getSecond() <= WINDOWSIZE) {
-                    for (String signal : getSignals()) {
-                        if (signal.equals(getTokenSequence(sentRes.toks, closestSignalBefore))) {
-                            feature = prefix + " SIGNALCLOSESTLEFT_WINDOWSIZE#" + signal;
-                            features.add(feature);
+                break;
+
+            case SIGNALCLOSESTLEFT_WINDOWSIZE:
+                closestSignalBefore = getClosestSignalBefore(sentRes, concept.getBoundaries());
+                if (closestSignalBefore != null) {
+                    if (concept.getStart() - closestSignalBefore.getSecond() <= WINDOWSIZE) {
+                        // once per lexicon entry of the signal
+                        String closestSignal = getTokenSequence(lowerToks, closestSignalBefore);
+                        int entries = signalMatcher.getEntryCount(lowerToks, closestSignalBefore.getFirst(),
+                                closestSignalBefore.getSecond());
+                        for (int e = 0; e < entries; e++) {
+                            sink.add(plan.getTypeOrdinal(stage), closestSignal);
                         }
                     }
                 }
-            }
-        }
-
-        if (AssertConfig.isSelected("STEM")) {
-            for (int i = 0; i < sentRes.toks.length; i++) {
-                if (!Token.isPunctuations(sentRes.toks[i])) {
-                    feature = prefix + " STEM#" + sentRes.toks[i].toLowerCase();
-                    features.add(feature);
-                }
-            }
-        }
+                break;
 
-        if (AssertConfig.isSelected("QMARK_RIGHT")) {
-            if (concept.getEnd() < sentRes.toks.length - 1) {
-                if (sentRes.toks[concept.getEnd() + 1].equals("?")) {
-                    feature = prefix + " QMARK_RIGHT#true";
-                    features.add(feature);
+            case STEM:
+                for (int i = 0; i < sentRes.toks.length; i++) {
+                    if (!puncts[i]) {
+                        sink.add(plan.getTypeOrdinal(stage), lowerToks[i]);
+                    }
                 }
-            }
-        }
-
-        if (AssertConfig.isSelected("PRESENT_SPECIAL")) {
-            feature = prefix + " PRESENT_SPECIAL#true";
-            extractLeftSequence("with a history of", concept, sentRes, prefix, feature);
-            extractLeftSequence("found to have", concept, sentRes, prefix, feature);
-            extractLeftSequence("noted to have", concept, sentRes, prefix, feature);
-            extractLeftSequence("which showed", concept, sentRes, prefix, feature);
-            extractLeftSequence("also had", concept, sentRes, prefix, feature);
-            extractLeftSequence("complicated by", concept, sentRes, prefix, feature);
-            extractLeftSequence("status post", concept, sentRes, prefix, feature);
-            extractLeftSequence("notable for", concept, sentRes, prefix, feature);
-            extractLeftSequence("demonstrated", concept, sentRes, prefix, feature);
-            extractLeftSequence("given", concept, sentRes, prefix, feature);
-            extractLeftSequence("which revealed", concept, sentRes, prefix, feature);
-            extractLeftSequence("+", concept, sentRes, prefix, feature);
-            extractLeftSequence("continued to have", concept, sentRes, prefix, feature);
-            extractLeftSequence("patient has a history of", concept, sentRes, prefix, feature);
-            extractLeftSequence("showing", concept, sentRes, prefix, feature);
-            extractLeftSequence("setting of", concept, sentRes, prefix, feature);
-        }
-
-        if (AssertConfig.isSelected("ABSENT_SPECIAL")) {
-            feature = prefix + " ABSENT_SPECIAL#true";
-            extractLeftSequence("no evidence of", concept, sentRes, prefix, feature);
-            extractLeftSequence("had no", concept, sentRes, prefix, feature);
-            extractLeftSequence("showed no", concept, sentRes, prefix, feature);
-            extractLeftSequence("denied", concept, sentRes, prefix, feature);
-            extractLeftSequence("were no", concept, sentRes, prefix, feature);
-            extractLeftSequence("negative for", concept, sentRes, prefix, feature);
-            extractLeftSequence("he denies", concept, sentRes, prefix, feature);
-            extractLeftSequence("did not have", concept, sentRes, prefix, feature);
-            extractLeftSequence("having no", concept, sentRes, prefix, feature);
-            extractLeftSequence("he has no", concept, sentRes, prefix, feature);
-            extractLeftSequence("she had no", concept, sentRes, prefix, feature);
-            extractLeftSequence("denies any", concept, sentRes, prefix, feature);
-            extractLeftSequence("revealed no", concept, sentRes, prefix, feature);
-            extractLeftSequence("no signs of", concept, sentRes, prefix, feature);
-            extractLeftSequence("as having no", concept, sentRes, prefix, feature);
-            extractLeftSequence("out for", concept, sentRes, prefix, feature);
-            extractLeftSequence("patient denies", concept, sentRes, prefix, feature);
-            extractLeftSequence("patient had no", concept, sentRes, prefix, feature);
-            extractLeftSequence("she denies", concept, sentRes, prefix, feature);
-        }
-
-        if (AssertConfig.isSelected("POSSIBLE_SPECIAL")) {
-            feature = prefix + " POSSIBLE_SPECIAL#true";
-            extractLeftSequence("r/o", concept, sentRes, prefix, feature);
-            extractLeftSequence("questionable", concept, sentRes, prefix, feature);
-            extractLeftSequence("versus", concept, sentRes, prefix, feature);
-            extractLeftSequence("possible", concept, sentRes, prefix, feature);
-            extractLeftSequence("possibly", concept, sentRes, prefix, feature);
-            extractLeftSequence("probable", concept, sentRes, prefix, feature);
-            extractLeftSequence("presumed", concept, sentRes, prefix, feature);
-            extractLeftSequence("vs.", concept, sentRes, prefix, feature);
-            extractLeftSequence("r / o", concept, sentRes, prefix, feature);
-            extractLeftSequence("either", concept, sentRes, prefix, feature);
-            extractLeftSequence("representing", concept, sentRes, prefix, feature);
-            extractLeftSequence("exclude", concept, sentRes, prefix, feature);
-            extractLeftSequence("most likely", concept, sentRes, prefix, feature);
-            extractLeftSequence("likely have", concept, sentRes, prefix, feature);
-            extractLeftSequence("suspicion for", concept, sentRes, prefix, feature);
-            extractLeftSequence("question", concept, sentRes, prefix, feature);
-            extractLeftSequence("appears to be", concept, sentRes, prefix, feature);
-            extractLeftSequence("suggesting", concept, sentRes, prefix, feature);
-            extractLeftSequence("may have", concept, sentRes, prefix, feature);
-            extractLeftSequence("to likely have", concept, sentRes, prefix, feature);
-            extractLeftSequence("to rule out", concept, sentRes, prefix, feature);
-            extractLeftSequence("question of", concept, sentRes, prefix, feature);
-            extractLeftSequence("vs", concept, sentRes, prefix, feature);
-            extractLeftSequence("represent", concept, sentRes, prefix, feature);
-
-            extractRightSequence("versus", concept, sentRes, prefix, feature);
-            extractRightSequence("vs", concept, sentRes, prefix, feature);
-            extractRightSequence("vs.", concept, sentRes, prefix, feature);
-        }
+                break;
 
-        if (AssertConfig.isSelected("POSSIBLE_SPECIAL2")) {
-            feature = prefix + " POSSIBLE_SPECIAL2#true";
-            extractLeftSequence("not rule out", concept, sentRes, prefix, feature);
-            extractLeftSequence("could be", concept, sentRes, prefix, feature);
-            extractLeftSequence("probably", concept, sentRes, prefix, feature);
-            extractLeftSequence("chance of", concept, sentRes, prefix, feature);
-            extractLeftSequence("were suggestive of", concept, sentRes, prefix, feature);
-            extractLeftSequence("is suggestive of", concept, sentRes, prefix, feature);
-            extractLeftSequence("checked for", concept, sentRes, prefix, feature);
-            extractLeftSequence("possibility of", concept, sentRes, prefix, feature);
-            extractLeftSequence("worrisome for", concept, sentRes, prefix, feature);
-            extractLeftSequence("may not be", concept, sentRes, prefix, feature);
-            extractLeftSequence("suspicion of", concept, sentRes, prefix, feature);
-            extractLeftSequence("may reflect", concept, sentRes, prefix, feature);
-            extractLeftSequence("questionable history of", concept, sentRes, prefix, feature);
-            extractLeftSequence("question of history of", concept, sentRes, prefix, feature);
-            extractLeftSequence("was evidence of", concept, sentRes, prefix, feature);
-            extractLeftSequence("most likely related to", concept, sentRes, prefix, feature);
-            extractLeftSequence("possibly was due to", concept, sentRes, prefix, feature);
-            extractLeftSequence("which was equivocal for", concept, sentRes, prefix, feature);
-            extractLeftSequence("probability of", concept, sentRes, prefix, feature);
-            extractLeftSequence("suspected to be", concept, sentRes, prefix, feature);
-            extractLeftSequence("presumptive", concept, sentRes, prefix, feature);
-            extractRightSequence("not excluded", concept, sentRes, prefix, feature);
-            extractRightSequence("difficult", concept, sentRes, prefix, feature);
-            extractRightSequence("would be a consideration", concept, sentRes, prefix, feature);
-            extractRightSequence("is possible", concept, sentRes, prefix, feature);
-            extractRightSequence("also a possibility", concept, sentRes, prefix, feature);
-        }
-
-        if (AssertConfig.isSelected("HAS_KINSHIP_INSENTENCE")) {
-            boolean flag = false;
-            for (int i = 0; i < sentRes.toks.length; i++) {
-                if (isSignal(kinshipSignals, sentRes.toks[i].toLowerCase())) {
-                    flag = true;
-                    break;
+            case QMARK_RIGHT:
+                if (concept.getEnd() < sentRes.toks.length - 1) {
+                    if (sentRes.toks[concept.getEnd() + 1].equals("?")) {
+                        sink.add(plan.getTypeOrdinal(stage), "true");
+                    }
                 }
-            }
-            if (flag) {
-                feature = prefix + " HAS_KINSHIP_INSENTENCE#true";
-                features.add(feature);
-            } else {
-                // feature = prefix+" HAS_KINSHIP_INSENTENCE#false";
-                // feWriter.println(feature);
-            }
-        }
-
-        if (AssertConfig.isSelected("CONCEPTSTEMEXPRESSION")) {
-            StringBuilder builder = new StringBuilder();
-            for (int i = concept.getStart(); i <= concept.getEnd(); i++) {
-                if (!Token.isPunctuations(sentRes.toks[i])) {
-                    builder.append(sentRes.toks[i]);
-                    builder.append(Token.DEFAULT_DELIM);
+                break;
+
+            case PRESENT_SPECIAL:
+            case ABSENT_SPECIAL:
+            case POSSIBLE_SPECIAL:
+            case POSSIBLE_SPECIAL2:
+                if (!cuesMatched) {
+                    cueMatches = specialCues.match(lowerToks, concept.getStart(), concept.getEnd());
+                    cuesMatched = true;
                 }
-            }
-            feature = prefix + " CONCEPTSTEMEXPRESSION#" + builder.toString().toLowerCase();
-            features.add(feature);
-        }
-
-        if (AssertConfig.isSelected("NEGPREFIX")) {
-            String lemma = null;
-            for (int i = concept.getStart(); i <= concept.getEnd(); i++) {
-                lemma = sentRes.toks[i].toLowerCase();
-                if (!Token.isPunctuations(lemma)) {
-                    for (String negPrefix : negPrefixes) {
-                        if (!lemma.equals(negPrefix) && lemma.startsWith(negPrefix)) {
-                            feature = prefix + " NEGPREFIX__" + negPrefix + "#true";
-                            features.add(feature);
-                            break;
-                        }
+                if ((cueMatches & (1L << stage.ordinal())) != 0)
+                    sink.add(plan.getTypeOrdinal(stage), "true");
+                break;
+
+            case HAS_KINSHIP_INSENTENCE:
+                flag = false;
+                for (int i = 0; i < sentRes.toks.length; i++) {
+                    if (signalMatcher.contains(SignalMatcher.KINSHIP, lowerToks[i])) {
+                        flag = true;
+                        break;
                     }
                 }
-            }
-        }
-
-        int LIMIT_NEGPREFIX = 5;
-        if (AssertConfig.isSelected("NEGPREFIX_LEFTWINDOW")) {
-            String lemma = null;
-            for (int i = Math.max(0, concept.getStart() - LIMIT_NEGPREFIX); i < concept.getStart(); i++) {
-                lemma = sentRes.toks[i].toLowerCase();
-                if (!Token.isPunctuations(lemma)) {
-                    for (String negPrefix : negPrefixes) {
-                        if (!lemma.equals(negPrefix) && lemma.startsWith(negPrefix)) {
-                            feature = prefix + " NEGPREFIX_LEFTWINDOW__" + negPrefix + "#true";
-                            features.add(feature);
-                            break;
-                        }
-                    }
+                if (flag) {
+                    sink.add(plan.getTypeOrdinal(stage), "true");
+                } else {
+                    // feature = prefix+" HAS_KINSHIP_INSENTENCE#false";
+                    // feWriter.println(feature);
                 }
-            }
-        }
-
-        if (AssertConfig.isSelected("NEGPREFIX_RIGHTWINDOW")) {
-            String lemma = null;
-            for (int i = concept.getEnd() + 1; i < Math.min(sentRes.toks.length,
-                    concept.getEnd() + LIMIT_NEGPREFIX + 1); i++) {
-                lemma = sentRes.toks[i].toLowerCase();
-                if (!Token.isPunctuations(lemma)) {
-                    for (String negPrefix : negPrefixes) {
-                        if (!lemma.equals(negPrefix) && lemma.startsWith(negPrefix)) {
-                            feature = prefix + " NEGPREFIX_RIGHTWINDOW__" + negPrefix + "#true";
-                            features.add(feature);
-                            break;
-                        }
+                break;
+
+            case CONCEPTSTEMEXPRESSION:
+                builder = new StringBuilder();
+                for (int i = concept.getStart(); i <= concept.getEnd(); i++) {
+                    if (!puncts[i]) {
+                        builder.append(sentRes.toks[i]);
+                        builder.append(Token.DEFAULT_DELIM);
                     }
                 }
-            }
-        }
-
-        if (AssertConfig.isSelected("WORDLEFT1_UNCASE")) {
-            if (concept.getStart() > 0) {
-                feature = prefix + " WORDLEFT1_UNCASE#" + sentRes.toks[concept.getStart() - 1].toLowerCase();
-                features.add(feature);
-            }
-        }
+                sink.add(plan.getTypeOrdinal(stage), builder.toString().toLowerCase());
+                break;
+
+            case NEGPREFIX:
+                extractNegPrefixes(stage, concept.getStart(), concept.getEnd() + 1, sentRes, sink);
+                break;
+
+            case NEGPREFIX_LEFTWINDOW:
+                extractNegPrefixes(stage, Math.max(0, concept.getStart() - LIMIT_NEGPREFIX), concept.getStart(),
+                        sentRes, sink);
+                break;
+
+            case NEGPREFIX_RIGHTWINDOW:
+                extractNegPrefixes(stage, concept.getEnd() + 1,
+                        Math.min(sentRes.toks.length, concept.getEnd() + LIMIT_NEGPREFIX + 1), sentRes, sink);
+                break;
+
+            case WORDLEFT1_UNCASE:
+                if (concept.getStart() > 0) {
+                    sink.add(plan.getTypeOrdinal(stage), lowerToks[concept.getStart() - 1]);
+                }
+                break;
 
-        if (AssertConfig.isSelected("STEMLEFT1_UNCASE")) {
-            if (concept.getStart() > 0) {
-                feature = prefix + " STEMLEFT1_UNCASE#" + sentRes.toks[concept.getStart() - 1].toLowerCase();
-                features.add(feature);
-            }
-        }
+            case STEMLEFT1_UNCASE:
+                if (concept.getStart() > 0) {
+                    sink.add(plan.getTypeOrdinal(stage), lowerToks[concept.getStart() - 1]);
+                }
+                break;
 
-        if (AssertConfig.isSelected("WORDLEFT2_UNCASE")) {
-            if (concept.getStart() > 1) {
-                feature = digit7 + " " + instance.getAssertionValue() + " WORDLEFT2_UNCASE#"
-                        + sentRes.toks[concept.getStart() - 2].toLowerCase();
-                features.add(feature);
-            }
-        }
+            case WORDLEFT2_UNCASE:
+                if (concept.getStart() > 1) {
+                    sink.add(plan.getTypeOrdinal(stage), lowerToks[concept.getStart() - 2]);
+                }
+                break;
 
-        if (AssertConfig.isSelected("STEMTRIGRAMLEFT_UNCASE")) {
-            if (concept.getStart() > 2) {
-                feature = prefix + " STEMTRIGRAMLEFT_UNCASE#" + sentRes.toks[concept.getStart() - 1].toLowerCase()
-                        + "||" + sentRes.toks[concept.getStart() - 2].toLowerCase() + "||"
-                        + sentRes.toks[concept.getStart() - 3].toLowerCase();
-                features.add(feature);
+            case STEMTRIGRAMLEFT_UNCASE:
+                if (concept.getStart() > 2) {
+                    sink.add(plan.getTypeOrdinal(stage), lowerToks[concept.getStart() - 1]
+                            + "||" + lowerToks[concept.getStart() - 2] + "||"
+                            + lowerToks[concept.getStart() - 3]);
+                }
+                break;
+
+            case NEGEX:
+                sink.add(plan.getTypeOrdinal(stage), NegEx.analyzeNegation(sentRes.getFlat(), concept.getName()).toLowerCase());
+                break;
+
+            case NEGEX_W6:
+                if (sentFlat_W6 == null)
+                    sentFlat_W6 = getWindowFlat(sentRes.toks, concept, LIMIT_W6);
+                sink.add(plan.getTypeOrdinal(stage), NegEx.analyzeNegation(sentFlat_W6, concept.getName()).toLowerCase());
+                break;
+
+            case CONTEXT_EXPERIENCER:
+                String experiencer = ConText.analyzeExperiencer(sentRes.getFlat()).replaceAll("\\s+", "_");
+                sink.add(plan.getTypeOrdinal(stage), experiencer);
+                break;
+
+            case CONTEXT_TEMPORALITY_W6:
+                if (sentFlat_W6 == null)
+                    sentFlat_W6 = getWindowFlat(sentRes.toks, concept, LIMIT_W6);
+                sink.add(plan.getTypeOrdinal(stage), ConText.analyzeTemporality(sentFlat_W6));
+                break;
+
+            case WORD_POSITION:
+                builder = new StringBuilder();
+                int position = 0;
+                for (int i = 0; i < sentRes.toks.length; i++) {
+                    if (!puncts[i]) {
+                        if (i < concept.getStart())
+                            position = i - concept.getStart();
+                        else if (i <= concept.getEnd())
+                            position = 0;
+                        else
+                            position = i - concept.getEnd();
+
+                        builder.setLength(0);
+                        builder.append(sentRes.toks[i]).append("__").append(position);
+                        sink.add(plan.getTypeOrdinal(stage), builder);
+                    }
+                }
+                break;
             }
         }
+    }
 
-        if (AssertConfig.isSelected("NEGEX")) {
-            feature = prefix + " NEGEX#" + NegEx.analyzeNegation(sentFlat, concept.getName()).toLowerCase();
-            features.add(feature);
-        }
-
-        if (AssertConfig.isSelected("NEGEX_W6")) {
-            feature = prefix + " NEGEX_W6#" + NegEx.analyzeNegation(sentFlat_W6, concept.getName()).toLowerCase();
-            features.add(feature);
-        }
-
-        if (AssertConfig.isSelected("CONTEXT_EXPERIENCER")) {
-            String experiencer = ConText.analyzeExperiencer(sentFlat).replaceAll("\\s+", "_");
-            feature = prefix + " CONTEXT_EXPERIENCER#" + experiencer;
-            features.add(feature);
+    /**
+     * Emits the NEGPREFIX features of a stage for the tokens in [from, to)
+     */
+    private void extractNegPrefixes(Stage stage, int from, int to, SentenceLevelResources sentRes,
+            FeatureSink sink) {
+        int[] negPrefixIds = sentRes.getNegPrefixIds();
+        for (int i = from; i < to; i++) {
+            if (negPrefixIds[i] != -1)
+                sink.add(plan.getTypeOrdinal(stage, negPrefixIds[i]), "true");
         }
+    }
 
-        if (AssertConfig.isSelected("CONTEXT_TEMPORALITY_W6")) {
-            feature = prefix + " CONTEXT_TEMPORALITY_W6#" + ConText.analyzeTemporality(sentFlat_W6);
-            features.add(feature);
+    /**
+     * Flattens the tokens of a window of <code>limit</code> tokens around a concept
+     */
+    private static String getWindowFlat(String[] toks, Concept concept, int limit) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = Math.max(0, concept.getStart() - limit); i < Math.min(toks.length, concept.getEnd() + limit); i++) {
+            builder.append(toks[i]);
+            builder.append(" ");
         }
+        return builder.toString().trim();
+    }
 
-        if (AssertConfig.isSelected("WORD_POSITION")) {
-            int pos = 0;
-            for (int i = 0; i < sentRes.toks.length; i++) {
-                if (!Token.isPunctuations(sentRes.toks[i])) {
-                    if (i < concept.getStart())
-                        pos = i - concept.getStart();
-                    else if (i <= concept.getEnd())
-                        pos = 0;
-                    else
-                        pos = i - concept.getEnd();
-
-                    feature = digit7 + " " + instance.getAssertionValue() + " WORD_POSITION#" + sentRes.toks[i] + "__"
-                            + pos;
-                    features.add(feature);
-                }
-            }
-        }
-        return features;
+    /**
+     * Returns the <code>id target</code> part of the readable feature lines of an instance
+     */
+    private static String getInstancePrefix(AssertAnnotation instance) {
+        return StringUtil.leftPad(1, 7, '0') + " " + instance.getAssertionValue();
     }
 
     public void loadSignals(String ASSERTRESOURCES) {
@@ -430,6 +438,26 @@ public class LexFeatureExtractor {
         loadSignals(bionegSignals, ASSERTRESOURCES + Config.getP("path.bionegsignals"));
         kinshipSignals = new ArrayList<LabeledIntPair>();
         loadSignals(kinshipSignals, ASSERTRESOURCES + Config.getP("path.kinshipsignals"));
+        signalMatcher = new SignalMatcher();
+        for (LabeledIntPair signal : bionegSignals)
+            signalMatcher.add(SignalMatcher.BIONEG, signal.getLabel().split(Token.DEFAULT_DELIM));
+        for (LabeledIntPair signal : kinshipSignals)
+            signalMatcher.add(SignalMatcher.KINSHIP, signal.getLabel().split(Token.DEFAULT_DELIM));
+        signalMatcher.compile();
+        String specialCuesPath = Config.getP("path.specialcues");
+        if (specialCuesPath == null)
+            specialCues = CuePhraseMatcher.loadDefault();
+        else
+            specialCues = CuePhraseMatcher.load(ASSERTRESOURCES + specialCuesPath);
+    }
+
+    /**
+     * Checks that the signal lists and the cue phrases were read (the loaders
+     * report their errors and leave empty structures behind)
+     */
+    public boolean isLoaded() {
+        return bionegSignals != null && !bionegSignals.isEmpty() && kinshipSignals != null && !kinshipSignals.isEmpty()
+                && specialCues.size() > 0;
     }
 
     public void loadSignals(List<LabeledIntPair> signals, String filePath) {
@@ -471,25 +499,20 @@ public class LexFeatureExtractor {
         Collections.sort(signals, IntPair.getDescComparatorByFirstInt());
     }
 
+    /**
+     * Tests if an expression (tokens joined by <code>Token.DEFAULT_DELIM</code>)
+     * is a signal of any lexicon
+     */
     public boolean isSignal(String expression) {
-        if (isSignal(bionegSignals, expression))
-            return true;
-        if (isSignal(kinshipSignals, expression))
-            return true;
-        return false;
+        return signalMatcher.contains(SignalMatcher.BIONEG | SignalMatcher.KINSHIP, expression.split(Token.DEFAULT_DELIM));
     }
 
+    /**
+     * Tests if an expression (tokens joined by <code>Token.DEFAULT_DELIM</code>)
+     * is a negation signal
+     */
     public boolean isNegSignal(String expression) {
-        if (isSignal(bionegSignals, expression))
-            return true;
-        return false;
-    }
-
-    public boolean isSignal(List<LabeledIntPair> signals, String expression) {
-        for (LabeledIntPair signal : signals)
-            if (signal.getLabel().equals(expression))
-                return true;
-        return false;
+        return signalMatcher.contains(SignalMatcher.BIONEG, expression.split(Token.DEFAULT_DELIM));
     }
 
     public IntPair getClosestSignalBefore(String[] toks, IntPair reference) {
@@ -506,6 +529,33 @@ public class LexFeatureExtractor {
         return IntPair.getClosestBefore(reference, signalIntervals);
     }
 
+    /**
+     * Same as <code>getClosestSignalBefore(String[], IntPair)</code>, with the
+     * signals of the sentence found once for all its concepts
+     */
+    private IntPair getClosestSignalBefore(SentenceLevelResources sentRes, IntPair reference) {
+        if (sentRes.signals == null)
+            sentRes.signals = signalMatcher.match(sentRes.getLowerTokens(), SignalMatcher.BIONEG | SignalMatcher.KINSHIP);
+        return getClosestBefore(sentRes.signals, reference);
+    }
+
+    /**
+     * Same as <code>getClosestNegSignalBefore(String[], IntPair)</code>, with the
+     * negation signals of the sentence found once for all its concepts
+     */
+    private IntPair getClosestNegSignalBefore(SentenceLevelResources sentRes, IntPair reference) {
+        if (sentRes.negSignals == null)
+            sentRes.negSignals = signalMatcher.match(sentRes.getLowerTokens(), SignalMatcher.BIONEG);
+        return getClosestBefore(sentRes.negSignals, reference);
+    }
+
+    private static IntPair getClosestBefore(SignalMatcher.Spans spans, IntPair reference) {
+        int k = spans.getClosestBefore(reference.getFirst());
+        if (k == -1)
+            return null;
+        return new IntPair(spans.starts[k], spans.ends[k]);
+    }
+
     public List<String> getSignals() {
         List<String> signals = new ArrayList<String>();
         signals.addAll(getSignals(bionegSignals));
@@ -525,26 +575,21 @@ public class LexFeatureExtractor {
      * max lenght: 5
      */
     public List<IntPair> getSignals(String[] toks) {
-        List<IntPair> signalIntervals = new ArrayList<IntPair>();
-
-        for (int limit = 4; limit >= 0; limit--) {
-            for (int i = 0; i < toks.length - limit; i++) {
-                if (isSignal(getTokenSequence(toks, i, limit)))
-                    IntPair.insertSpecial(new IntPair(i, i + limit), signalIntervals);
-            }
-        }
-        return signalIntervals;
+        return getSignalIntervals(toks, SignalMatcher.BIONEG | SignalMatcher.KINSHIP);
     }
 
     public List<IntPair> getNegSignals(String[] toks) {
-        List<IntPair> signalIntervals = new ArrayList<IntPair>();
+        return getSignalIntervals(toks, SignalMatcher.BIONEG);
+    }
 
-        for (int limit = 4; limit >= 0; limit--) {
-            for (int i = 0; i < toks.length - limit; i++) {
-                if (isNegSignal(getTokenSequence(toks, i, limit)))
-                    IntPair.insertSpecial(new IntPair(i, i + limit), signalIntervals);
-            }
-        }
+    private List<IntPair> getSignalIntervals(String[] toks, int lexicons) {
+        String[] lowerToks = new String[toks.length];
+        for (int i = 0; i < toks.length; i++)
+            lowerToks[i] = toks[i].toLowerCase();
+        SignalMatcher.Spans spans = signalMatcher.match(lowerToks, lexicons);
+        List<IntPair> signalIntervals = new ArrayList<IntPair>(spans.size);
+        for (int k = 0; k < spans.size; k++)
+            signalIntervals.add(new IntPair(spans.starts[k], spans.ends[k]));
         return signalIntervals;
     }
 
@@ -572,44 +617,4 @@ public class LexFeatureExtractor {
 
         return builder.toString();
     }
-
-    public String extractLeftSequence(String expression, Concept concept, SentenceLevelResources sentRes, String prefix, String feature) {
-        String[] toks = expression.split("\\s+");
-        if (concept.getStart() > toks.length - 1) {
-            String[] words = new String[toks.length];
-            for (int i = 0; i < toks.length; i++) {
-                words[i] = sentRes.toks[concept.getStart() - (toks.length - i)].toLowerCase();
-            }
-            boolean flag = true;
-            for (int i = 0; i < toks.length; i++)
-                if (!words[i].equals(toks[i])) {
-                    flag = false;
-                    break;
-                }
-            if (flag) {
-                return feature;
-            }
-        }
-        return null;
-    }
-
-    public String extractRightSequence(String expression, Concept concept, SentenceLevelResources sentRes, String prefix, String feature) {
-        String[] toks = expression.split("\\s+");
-        if (concept.getEnd() < sentRes.toks.length - toks.length) {
-            String[] words = new String[toks.length];
-            for (int i = 0; i < toks.length; i++) {
-                words[i] = sentRes.toks[concept.getEnd() + i + 1].toLowerCase();
-            }
-            boolean flag = true;
-            for (int i = 0; i < toks.length; i++)
-                if (!words[i].equals(toks[i])) {
-                    flag = false;
-                    break;
-                }
-            if (flag) {
-                return feature;
-            }
-        }
-        return null;
-    }
 }
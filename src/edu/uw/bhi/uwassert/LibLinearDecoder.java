@@ -21,55 +21,463 @@
 
 package edu.uw.bhi.uwassert;
 
+import name.adibejan.io.FileUtil;
+
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
 
 /**
  * Java implementation of LibLinear prediction method
  *
+ * The weights are read either from a LIBLINEAR text model or from the binary
+ * format written by {@link #saveBinaryModelFile(String)}. The binary format is
+ * little-endian: magic, version, nr_class, nr_feature, bias, the label map, zero
+ * padding up to an 8-byte boundary, and then the weights in the same
+ * feature-major order as the rows of the text model.
+ *
  * @author Nic Dobbins
  * @version 1.0
  * @since JDK1.6 | February 2021
  */
 public class LibLinearDecoder {
-    private double[][] weightsByClass = null;
+    public static final int BINARY_MAGIC = 0x4D4C4C55; /* "ULLM" in little-endian */
+    public static final int BINARY_VERSION = 1;
+    public static final String DEFAULT_SOLVER_TYPE = "L2R_L2LOSS_SVC_DUAL";
+
+    private WeightStore weights = null;
     private int classCount = 6;
     private int featureCount = 89923;
     private int[] classIdxMap = null;
+    private double bias = -1;
+    private String solverType = DEFAULT_SOLVER_TYPE; /* not kept by the binary format */
 
     public LibLinearDecoder(String modelFilePath) {
-        loadWeightsFromModelFile(modelFilePath);
+        this(modelFilePath, WeightStorage.HEAP);
+    }
+
+    /**
+     * Creates a decoder with the classes and bias of another decoder and the given weights
+     */
+    private LibLinearDecoder(LibLinearDecoder model, double[] rows, int featureCount, WeightStorage storage) {
+        classCount = model.classCount;
+        this.featureCount = featureCount;
+        classIdxMap = model.classIdxMap;
+        bias = model.bias;
+        solverType = model.solverType;
+        weights = createHeapStore(rows, storage);
+    }
+
+    public LibLinearDecoder(String modelFilePath, WeightStorage storage) {
+        if (isBinaryModelFile(modelFilePath)) {
+            loadWeightsFromBinaryFile(modelFilePath, storage);
+        } else {
+            if (storage == WeightStorage.MAPPED)
+                System.out.println("[" + modelFilePath + "] is not a binary model, loading the weights on the heap");
+            loadWeightsFromModelFile(modelFilePath, storage);
+        }
     }
 
     public int decode(int[] featureIdxs) {
+        return decode(featureIdxs, featureIdxs.length);
+    }
+
+    /**
+     * Decodes the first <code>count</code> features of a (reusable) index buffer
+     */
+    public int decode(int[] featureIdxs, int count) {
         
         // Add up weights
         double[] decValues = new double[classCount];
-        for (int featIdx : featureIdxs) {
+        weights.accumulate(featureIdxs, 0, count, featureCount, decValues, 0);
+        addBias(decValues, 0);
+
+        // ArgMax
+        return classIdxMap[weights.argMax(decValues)];
+    }
+
+    /**
+     * Adds the weights of the given features to <code>decValues</code> (the bias
+     * is not added)
+     */
+    public void accumulate(int[] featureIdxs, double[] decValues) {
+        accumulate(featureIdxs, featureIdxs.length, decValues);
+    }
+
+    /**
+     * Adds the weights of the first <code>count</code> features of a (reusable)
+     * index buffer to <code>decValues</code>
+     */
+    public void accumulate(int[] featureIdxs, int count, double[] decValues) {
+        weights.accumulate(featureIdxs, 0, count, featureCount, decValues, 0);
+    }
+
+    /**
+     * Decodes one instance into a reusable result, keeping the decision values
+     * of all the classes, the winning class and the top-1/top-2 margin
+     *
+     * @return the label of the winning class
+     */
+    public int decode(int[] featureIdxs, DecisionValues result) {
+        return decode(featureIdxs, featureIdxs.length, null, result);
+    }
+
+    /**
+     * Decodes one instance whose scores start from precomputed partial decision
+     * values, e.g. the sum of the weights of the sentence-level features shared
+     * by all the concepts of a sentence (see {@link #accumulate(int[], double[])})
+     *
+     * @param partial the partial decision values (no bias), or null
+     * @return the label of the winning class
+     */
+    public int decode(int[] featureIdxs, double[] partial, DecisionValues result) {
+        return decode(featureIdxs, featureIdxs.length, partial, result);
+    }
+
+    /**
+     * Decodes the first <code>count</code> features of a (reusable) index buffer,
+     * starting from optional partial decision values
+     *
+     * @param partial the partial decision values (no bias), or null
+     * @return the label of the winning class
+     */
+    public int decode(int[] featureIdxs, int count, double[] partial, DecisionValues result) {
+        if (result.values.length != classCount)
+            result.values = new double[classCount];
+        double[] decValues = result.values;
+        if (partial == null)
+            Arrays.fill(decValues, 0);
+        else
+            System.arraycopy(partial, 0, decValues, 0, classCount);
+
+        weights.accumulate(featureIdxs, 0, count, featureCount, decValues, 0);
+        addBias(decValues, 0);
+
+        int decMaxIdx = weights.argMax(decValues);
+        double second = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < classCount; i++) {
+            if (i != decMaxIdx && decValues[i] > second)
+                second = decValues[i];
+        }
+        result.labels = classIdxMap;
+        result.maxIdx = decMaxIdx;
+        result.margin = classCount > 1 ? decValues[decMaxIdx] - second : 0;
+        return classIdxMap[decMaxIdx];
+    }
+
+    /**
+     * Decodes many instances packed as CSR: the feature ids of instance i are
+     * <code>indices[offsets[i] .. offsets[i+1]-1]</code>. The decision values
+     * are accumulated straight into the caller's score buffer, which can be
+     * reused from one batch to the next.
+     *
+     * @param labels filled with the label of every instance (length >= offsets.length-1)
+     * @param scores filled with the decision values of instance i at
+     *               <code>scores[i*classCount .. i*classCount+classCount-1]</code>
+     *               (length >= (offsets.length-1)*classCount)
+     */
+    public void decodeBatch(int[] offsets, int[] indices, int[] labels, double[] scores) {
+        int instanceCount = offsets.length - 1;
+        Arrays.fill(scores, 0, Math.max(instanceCount, 0) * classCount, 0);
+
+        for (int i = 0; i < instanceCount; i++) {
+            int decOffset = i * classCount;
+            weights.accumulate(indices, offsets[i], offsets[i+1], featureCount, scores, decOffset);
+            addBias(scores, decOffset);
+            labels[i] = classIdxMap[weights.argMax(scores, decOffset)];
+        }
+    }
+
+    /**
+     * LIBLINEAR appends the bias term as feature nr_feature+1
+     */
+    private void addBias(double[] decValues, int decOffset) {
+        if (bias >= 0) {
+            for (int i = 0; i < classCount; i++) {
+                decValues[decOffset + i] += bias * weights.get(featureCount, i);
+            }
+        }
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public int getFeatureCount() {
+        return featureCount;
+    }
+
+    /**
+     * Returns the bias (negative when the model has no bias term)
+     */
+    public double getBias() {
+        return bias;
+    }
+
+    public WeightStore getWeights() {
+        return weights;
+    }
+
+    /**
+     * Returns a copy of the weights in feature-major order
+     */
+    public double[] getRows() {
+        int rowCount = getRowCount();
+        double[] rows = new double[rowCount * classCount];
+        for (int featIdx = 0, k = 0; featIdx < rowCount; featIdx++) {
+            for (int i = 0; i < classCount; i++, k++) {
+                rows[k] = weights.get(featIdx, i);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Returns a decoder with the same classes and features but other weights
+     *
+     * @param rows the weights in feature-major order (see {@link #getRows()})
+     */
+    public LibLinearDecoder copyWithRows(double[] rows, WeightStorage storage) {
+        if (storage == WeightStorage.MAPPED)
+            throw new IllegalArgumentException("Only heap storage modes can be built from rows");
+        return copyWithRows(rows, featureCount, storage);
+    }
 
-            // The dimension of testing data may exceed that of training
-            if (featIdx <= featureCount) {
+    /**
+     * Returns a decoder with the same classes but other features and weights
+     * (e.g. features renumbered or hashed into another index space)
+     *
+     * @param rows the weights in feature-major order, <code>featureCount</code>
+     *             rows (plus the bias row when the model has a bias)
+     */
+    public LibLinearDecoder copyWithRows(double[] rows, int featureCount, WeightStorage storage) {
+        if (storage == WeightStorage.MAPPED)
+            throw new IllegalArgumentException("Only heap storage modes can be built from rows");
+        return new LibLinearDecoder(this, rows, featureCount, storage);
+    }
+
+    /**
+     * Number of weight rows: the features plus the bias row (when bias >= 0)
+     */
+    private int getRowCount() {
+        return bias >= 0 ? featureCount + 1 : featureCount;
+    }
+
+    /**
+     * Checks whether a model file starts with the binary format magic number
+     */
+    public static boolean isBinaryModelFile(String path) {
+        FileChannel channel = null;
+        try {
+            channel = new FileInputStream(path).getChannel();
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining() && channel.read(magic) != -1);
+            return !magic.hasRemaining() && magic.getInt(0) == BINARY_MAGIC;
+        } catch (IOException ioe) {
+            return false;
+        } finally {
+            try {
+                if (channel != null)
+                    channel.close();
+            } catch (IOException ioe) {
+                System.out.println("Error in closing the file: "+ioe.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Size in bytes of the binary header, padded so that the weights are 8-byte aligned
+     */
+    static int getBinaryHeaderSize(int classCount) {
+        int size = 4 + 4 + 4 + 4 + 8 + 4 * classCount;
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * Writes the loaded model in the binary format; the file is published by
+     * atomic rename (see <code>FileUtil.writeAtomically</code>)
+     */
+    public void saveBinaryModelFile(String path) {
+        int rowCount = getRowCount();
+        int headerSize = getBinaryHeaderSize(classCount);
+        ByteBuffer buffer = ByteBuffer.allocate(headerSize + 8 * rowCount * classCount).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(BINARY_MAGIC);
+        buffer.putInt(BINARY_VERSION);
+        buffer.putInt(classCount);
+        buffer.putInt(featureCount);
+        buffer.putDouble(bias);
+        for (int i = 0; i < classCount; i++) {
+            buffer.putInt(classIdxMap[i]);
+        }
+        buffer.position(headerSize);
+        for (double w : getRows()) {
+            buffer.putDouble(w);
+        }
+        buffer.flip();
+
+        try {
+            FileUtil.writeAtomically(buffer, path);
+        } catch (IOException ioe) {
+            System.out.println("Error in writing the file: "+ioe.getMessage());
+            ioe.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the model in the LIBLINEAR text format (the solver type of a model
+     * loaded from a binary file is <code>DEFAULT_SOLVER_TYPE</code>); the file is
+     * published by atomic rename
+     */
+    public void saveModelFile(String path) {
+        PrintWriter output = null;
+        File tmp = null;
+        try {
+            tmp = FileUtil.createSiblingTempFile(path);
+            output = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), "UTF-8")));
+            output.print("solver_type " + solverType + "\n");
+            output.print("nr_class " + classCount + "\n");
+            output.print("label");
+            for (int i = 0; i < classCount; i++) {
+                output.print(" " + classIdxMap[i]);
+            }
+            output.print("\n");
+            output.print("nr_feature " + featureCount + "\n");
+            output.print("bias " + (bias >= 0 ? Double.toString(bias) : "-1") + "\n");
+            output.print("w\n");
+            int rowCount = getRowCount();
+            StringBuilder builder = new StringBuilder();
+            for (int featIdx = 0; featIdx < rowCount; featIdx++) {
+                builder.setLength(0);
                 for (int i = 0; i < classCount; i++) {
-                    decValues[i] += weightsByClass[i][featIdx-1];
+                    double w = weights.get(featIdx, i);
+                    if (w == 0)
+                        builder.append("0 ");
+                    else
+                        builder.append(w).append(' ');
                 }
+                output.print(builder.append('\n'));
             }
+            output.close();
+            if (output.checkError())
+                throw new IOException("Could not write [" + tmp + "]");
+            FileUtil.replaceAtomically(tmp, path);
+            tmp = null;
+        } catch (IOException ioe) {
+            System.out.println("Error in writing the file: "+ioe.getMessage());
+            ioe.printStackTrace();
+        } finally {
+            if (output != null)
+                output.close();
+            if (tmp != null)
+                tmp.delete();
         }
+    }
 
-        // ArgMax
-        int decMaxIdx = 0;
-        for (int i = 1; i < classCount; i++) {
-            if (decValues[i] > decValues[decMaxIdx]) {
-                decMaxIdx = i;
+    private void loadWeightsFromBinaryFile(String path, WeightStorage storage) {
+        FileChannel channel = null;
+        try {
+            channel = new FileInputStream(path).getChannel();
+            ByteBuffer header = ByteBuffer.allocate(getBinaryHeaderSize(0)).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) != -1);
+            header.flip();
+
+            header.getInt(); // magic
+            int version = header.getInt();
+            if (version != BINARY_VERSION)
+                throw new IOException("Unsupported binary model version [" + version + "]");
+            classCount = header.getInt();
+            featureCount = header.getInt();
+            bias = header.getDouble();
+
+            int headerSize = getBinaryHeaderSize(classCount);
+            int rowCount = getRowCount();
+            long weightsSize = 8L * rowCount * classCount;
+            ByteBuffer labels = ByteBuffer.allocate(4 * classCount).order(ByteOrder.LITTLE_ENDIAN);
+            while (labels.hasRemaining() && channel.read(labels) != -1);
+            labels.flip();
+            classIdxMap = new int[classCount];
+            for (int i = 0; i < classCount; i++) {
+                classIdxMap[i] = labels.getInt();
+            }
+
+            if (storage == WeightStorage.MAPPED) {
+                // valid as long as the file is replaced by rename, not rewritten in place
+                weights = new MappedWeightStore(channel.map(FileChannel.MapMode.READ_ONLY, headerSize, weightsSize),
+                        classCount, rowCount);
+            } else {
+                ByteBuffer buffer = ByteBuffer.allocate((int) weightsSize).order(ByteOrder.LITTLE_ENDIAN);
+                channel.position(headerSize);
+                while (buffer.hasRemaining() && channel.read(buffer) != -1);
+                buffer.flip();
+
+                double[] rows = new double[rowCount * classCount];
+                buffer.asDoubleBuffer().get(rows);
+                weights = createHeapStore(rows, storage);
+            }
+        } catch (Exception ex) {
+            System.out.println(ex.toString());
+        } finally {
+            try {
+                if (channel != null)
+                    channel.close();
+            } catch (IOException ioe) {
+                System.out.println("Error in closing the file: "+ioe.getMessage());
+                ioe.printStackTrace();
             }
         }
-        return classIdxMap[decMaxIdx];
     }
 
-    private void loadWeightsFromModelFile(String path) {
+    /**
+     * Builds an on-heap store from feature-major rows
+     */
+    private WeightStore createHeapStore(double[] rows, WeightStorage storage) {
+        switch (storage) {
+            case FEATURE_MAJOR:
+                return new FeatureMajorWeightStore(rows, classCount, getRowCount());
+            case FLOAT32:
+                return new FloatWeightStore(rows, classCount, getRowCount());
+            case INT8:
+                return new QuantizedWeightStore(rows, classCount, getRowCount());
+            case SPARSE:
+                return new SparseWeightStore(rows, classCount, getRowCount());
+            case VECTOR:
+                WeightStore vectorStore = createVectorStore(rows);
+                if (vectorStore != null)
+                    return vectorStore;
+                return new FeatureMajorWeightStore(rows, classCount, getRowCount());
+        }
+        return ClassMajorWeightStore.fromRows(rows, classCount, getRowCount());
+    }
+
+    /**
+     * Loads <code>VectorWeightStore</code> by reflection, so that the decoder
+     * still works when the class was not compiled or the jdk.incubator.vector
+     * module is not available at run time
+     */
+    private WeightStore createVectorStore(double[] rows) {
+        try {
+            Class<?> vectorClass = Class.forName("edu.uw.bhi.uwassert.VectorWeightStore");
+            return (WeightStore) vectorClass.getConstructor(double[].class, int.class, int.class)
+                    .newInstance(rows, classCount, getRowCount());
+        } catch (Throwable t) {
+            System.out.println("Vector API not available (" + t + "), using the scalar feature-major decoder");
+            return null;
+        }
+    }
+
+    private void loadWeightsFromModelFile(String path, WeightStorage storage) {
         BufferedReader input = null;
-        double[][] weights = null;
+        double[] rows = null;
         boolean inWeights = false;
         String line = null; 
         int weightIdx = 0;
@@ -81,16 +489,18 @@ public class LibLinearDecoder {
                 if (line == null) break;
                 else if (inWeights) {
                     String[] weightsStr = line.split(" ");
-                    int classIdx = 0;
                     for (String w : weightsStr) {
-                        weights[classIdx][weightIdx] = Double.parseDouble(w);
-                        classIdx++;
+                        rows[weightIdx] = Double.parseDouble(w);
+                        weightIdx++;
                     }
-                    weightIdx++;
+                } else if (line.startsWith("solver_type")) {
+                    solverType = line.split(" ")[1];
                 } else if (line.startsWith("nr_class")) {
                     classCount = Integer.parseInt(line.split(" ")[1]);
                 } else if (line.startsWith("nr_feature")) {
                     featureCount = Integer.parseInt(line.split(" ")[1]);
+                } else if (line.startsWith("bias")) {
+                    bias = Double.parseDouble(line.split(" ")[1]);
                 } else if (line.startsWith("label")) {
                     String[] labels = line.split(" ");
                     classIdxMap = new int[labels.length-1];
@@ -99,10 +509,10 @@ public class LibLinearDecoder {
                     }
                 } else if (line.equals("w")) {
                     inWeights = true;
-                    weights = new double[classCount][featureCount];
+                    rows = new double[getRowCount() * classCount];
                 }
             }
-            weightsByClass = weights;
+            weights = createHeapStore(rows, storage);
         } catch (Exception ex) {
             System.out.println(ex.toString());
         } finally {
@@ -0,0 +1,71 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Read-only weights served straight from a memory-mapped binary model file.
+ * The weights stay in the OS page cache, so every JVM that maps the same file
+ * shares one physical copy and nothing is parsed or copied onto the heap.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class MappedWeightStore extends WeightStore {
+    private DoubleBuffer rows; /* feature-major: rows.get(row * classCount + classIdx) */
+
+    /**
+     * @param mapped the mapped weight region of the binary model (header excluded)
+     */
+    public MappedWeightStore(MappedByteBuffer mapped, int classCount, int rowCount) {
+        super(classCount, rowCount);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        rows = mapped.asDoubleBuffer();
+    }
+
+    public double get(int row, int classIdx) {
+        return rows.get(row * classCount + classIdx);
+    }
+
+    /**
+     * Size of the mapped region (off-heap, shared through the page cache)
+     */
+    public long getWeightBytes() {
+        return 8L * rows.capacity();
+    }
+
+    public void accumulate(int[] featureIdxs, int from, int to, int featureCount, double[] decValues, int decOffset) {
+        for (int j = from; j < to; j++) {
+            int featIdx = featureIdxs[j];
+            if (featIdx <= featureCount) {
+                int offset = (featIdx-1) * classCount;
+                for (int i = 0; i < classCount; i++) {
+                    decValues[decOffset + i] += rows.get(offset + i);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+import name.adibejan.util.Alphabet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compacts an alphabet and model pair: drops every feature whose weights are
+ * zero for every class (and the alphabet items past the model features),
+ * renumbers the remaining features densely in their original order and writes
+ * the matching smaller alphabet (<code>prefix.alph</code>) and text model
+ * (<code>prefix.dat.model</code>). A dropped feature is simply not found in the
+ * alphabet, which is what a zero weight row contributed. When a validation
+ * feature file in LIBLINEAR format (original indices) is given, the compacted
+ * pair is checked against the original one on it.
+ *
+ * Usage: java edu.uw.bhi.uwassert.ModelCompactor alphabet model prefix [validation.dat]
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class ModelCompactor {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3 && args.length != 4) {
+            System.out.println("Usage: please, specify an alphabet, a model file, the output prefix and optionally a validation feature file.");
+            return;
+        }
+        Alphabet<String> alph = Alphabet.<String>load(args[0]);
+        LibLinearDecoder model = new LibLinearDecoder(args[1], WeightStorage.HEAP);
+        int featureCount = model.getFeatureCount();
+
+        Alphabet<String> compactAlph = new Alphabet<String>(alph.getName());
+        int[] newIdxs = new int[alph.getSize()];
+        LibLinearDecoder compactModel = ModelPruner.compact(model, model.getRows(), alph, compactAlph, newIdxs);
+        int kept = compactModel.getFeatureCount();
+
+        File prefix = new File(args[2]);
+        String dir = prefix.getAbsoluteFile().getParent();
+        Alphabet.save(compactAlph, dir, prefix.getName() + ".alph");
+        compactModel.saveModelFile(args[2] + ".dat.model");
+
+        System.out.println("features: " + featureCount + " kept: " + kept + " dropped: " + (alph.getSize() - 1 - kept));
+        System.out.println("alphabet: " + new File(args[0]).length() + " -> " + new File(args[2] + ".alph").length()
+                + " bytes, model: " + new File(args[1]).length() + " -> " + new File(args[2] + ".dat.model").length() + " bytes");
+
+        if (args.length == 4) {
+            List<int[]> instances = new ArrayList<int[]>();
+            List<Integer> gold = new ArrayList<Integer>();
+            PrecisionCheck.readFeatureFile(args[3], instances, gold);
+            LibLinearDecoder reloaded = new LibLinearDecoder(args[2] + ".dat.model", WeightStorage.HEAP);
+            int agree = ModelPruner.countAgreement(model, reloaded, instances, newIdxs);
+            System.out.println(String.format("agreement: %d / %d (%.4f%%)", agree, instances.size(),
+                    instances.isEmpty() ? 100.0 : 100.0 * agree / instances.size()));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+/**
+ * Converts a LIBLINEAR text model (e.g. train_nosplit.dat.model) into the
+ * binary format read by <code>LibLinearDecoder</code>
+ *
+ * Usage: java edu.uw.bhi.uwassert.ModelConverter model.txt model.bin
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class ModelConverter {
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: please, specify a LIBLINEAR text model and the binary output file.");
+            return;
+        }
+
+        long start = System.nanoTime();
+        LibLinearDecoder decoder = new LibLinearDecoder(args[0]);
+        long textTime = System.nanoTime() - start;
+        decoder.saveBinaryModelFile(args[1]);
+
+        start = System.nanoTime();
+        new LibLinearDecoder(args[1]);
+        long binaryTime = System.nanoTime() - start;
+
+        System.out.println("classes: " + decoder.getClassCount() + " features: " + decoder.getFeatureCount());
+        System.out.println("text load: " + textTime / 1000000 + " ms, binary load: " + binaryTime / 1000000 + " ms");
+    }
+}
@@ -0,0 +1,158 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+import name.adibejan.util.Alphabet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prunes an alphabet and model pair: zeroes every weight whose magnitude is
+ * below epsilon, removes the features whose weights are then zero for every
+ * class, renumbers the remaining features densely in their original order and
+ * writes the matching smaller alphabet (<code>prefix.alph</code>) and binary
+ * model (<code>prefix.model.bin</code>). A removed feature is simply not found
+ * in the alphabet, which is what a zero weight row contributed. The tool
+ * reports the kept weights and features, the weight bytes in memory (dense and
+ * sparse storage) and the file sizes on disk. When a validation feature file in
+ * LIBLINEAR format (original indices) is given, the pruned pair, loaded with
+ * the sparse storage, is checked against the original model on it.
+ *
+ * Usage: java edu.uw.bhi.uwassert.ModelPruner alphabet model epsilon prefix [validation.dat]
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class ModelPruner {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4 && args.length != 5) {
+            System.out.println("Usage: please, specify an alphabet, a model file, the pruning epsilon, the output prefix and optionally a validation feature file.");
+            return;
+        }
+        Alphabet<String> alph = Alphabet.<String>load(args[0]);
+        LibLinearDecoder model = new LibLinearDecoder(args[1], WeightStorage.HEAP);
+        double epsilon = Double.parseDouble(args[2]);
+
+        double[] rows = model.getRows();
+        int dropped = 0;
+        int nonZero = 0;
+        for (int k = 0; k < rows.length; k++) {
+            if (rows[k] != 0 && Math.abs(rows[k]) < epsilon) {
+                rows[k] = 0;
+                dropped++;
+            }
+            if (rows[k] != 0)
+                nonZero++;
+        }
+        Alphabet<String> prunedAlph = new Alphabet<String>(alph.getName());
+        int[] newIdxs = new int[alph.getSize()];
+        LibLinearDecoder pruned = compact(model, rows, alph, prunedAlph, newIdxs);
+
+        File prefix = new File(args[3]);
+        Alphabet.save(prunedAlph, prefix.getAbsoluteFile().getParent(), prefix.getName() + ".alph");
+        pruned.saveBinaryModelFile(args[3] + ".model.bin");
+
+        LibLinearDecoder reloaded = new LibLinearDecoder(args[3] + ".model.bin", WeightStorage.SPARSE);
+        System.out.println("weights: " + rows.length + " dropped below epsilon: " + dropped + " kept: " + nonZero);
+        System.out.println("features: " + model.getFeatureCount() + " kept: " + pruned.getFeatureCount() + " removed: "
+                + (alph.getSize() - 1 - pruned.getFeatureCount()));
+        System.out.println("weight bytes in memory: " + model.getWeights().getWeightBytes() + " -> dense "
+                + pruned.getWeights().getWeightBytes() + ", sparse " + reloaded.getWeights().getWeightBytes());
+        System.out.println("file bytes on disk: alphabet " + new File(args[0]).length() + " -> "
+                + new File(args[3] + ".alph").length() + ", model " + new File(args[1]).length() + " -> "
+                + new File(args[3] + ".model.bin").length());
+
+        if (args.length == 5) {
+            List<int[]> instances = new ArrayList<int[]>();
+            List<Integer> gold = new ArrayList<Integer>();
+            PrecisionCheck.readFeatureFile(args[4], instances, gold);
+            int agree = countAgreement(model, reloaded, instances, newIdxs);
+            System.out.println(String.format("agreement: %d / %d (%.4f%%)", agree, instances.size(),
+                    instances.isEmpty() ? 100.0 : 100.0 * agree / instances.size()));
+        }
+    }
+
+    /**
+     * Removes the features whose weight rows are zero for every class (and the
+     * alphabet items past the model features) and renumbers the others densely
+     * in their original order; the bias row, if any, is kept.
+     *
+     * @param rows the weights of the model in feature-major order (see
+     *             <code>LibLinearDecoder.getRows</code>)
+     * @param compactAlph an empty alphabet, filled with the kept items
+     * @param newIdxs filled with the new index of every alphabet index (0 for a
+     *                removed feature)
+     * @return the model of the kept features (heap storage)
+     */
+    static LibLinearDecoder compact(LibLinearDecoder model, double[] rows, Alphabet<String> alph,
+            Alphabet<String> compactAlph, int[] newIdxs) {
+        int classCount = model.getClassCount();
+        int featureCount = model.getFeatureCount();
+
+        /* index 0 is the default alphabet value, the features start at 1 */
+        compactAlph.update(alph.getItem(0));
+        double[] compactRows = new double[rows.length];
+        int kept = 0;
+        for (int featIdx = 1; featIdx < alph.getSize() && featIdx <= featureCount; featIdx++) {
+            int offset = (featIdx - 1) * classCount;
+            boolean zero = true;
+            for (int i = 0; i < classCount && zero; i++) {
+                zero = rows[offset + i] == 0;
+            }
+            if (zero)
+                continue;
+            compactAlph.update(alph.getItem(featIdx));
+            newIdxs[featIdx] = ++kept;
+            System.arraycopy(rows, offset, compactRows, (kept - 1) * classCount, classCount);
+        }
+        /* the bias row (if any) follows the feature rows */
+        int biasLength = rows.length - featureCount * classCount;
+        System.arraycopy(rows, featureCount * classCount, compactRows, kept * classCount, biasLength);
+        compactRows = Arrays.copyOf(compactRows, kept * classCount + biasLength);
+        return model.copyWithRows(compactRows, kept, WeightStorage.HEAP);
+    }
+
+    /**
+     * Counts the instances (original indices) that a compacted model labels as
+     * the original model does
+     */
+    static int countAgreement(LibLinearDecoder model, LibLinearDecoder compact, List<int[]> instances, int[] newIdxs) {
+        int agree = 0;
+        for (int[] instance : instances) {
+            int[] compactInstance = new int[instance.length];
+            int size = 0;
+            for (int featIdx : instance) {
+                if (featIdx < newIdxs.length && newIdxs[featIdx] != 0)
+                    compactInstance[size++] = newIdxs[featIdx];
+            }
+            if (model.decode(instance) == compact.decode(compactInstance, size))
+                agree++;
+        }
+        return agree;
+    }
+}
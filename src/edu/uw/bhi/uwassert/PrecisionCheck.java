@@ -0,0 +1,109 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that the reduced-precision weight modes predict the same labels as
+ * the full-precision model. Decodes a held-out feature file in LIBLINEAR format
+ * (<code>label fid1:1 fid2:1 ...</code>) with every storage mode and reports the
+ * argmax labels that flip against the double-precision heap decoder.
+ *
+ * Usage: java edu.uw.bhi.uwassert.PrecisionCheck model heldout.dat
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class PrecisionCheck {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: please, specify a model file and a held-out feature file in LIBLINEAR format.");
+            return;
+        }
+        List<int[]> instances = new ArrayList<int[]>();
+        List<Integer> gold = new ArrayList<Integer>();
+        readFeatureFile(args[1], instances, gold);
+
+        LibLinearDecoder reference = new LibLinearDecoder(args[0], WeightStorage.HEAP);
+        int[] expected = new int[instances.size()];
+        int correct = 0;
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = reference.decode(instances.get(i));
+            if (expected[i] == gold.get(i))
+                correct++;
+        }
+        System.out.println("instances: " + expected.length);
+        report(WeightStorage.HEAP, reference, 0, correct, expected.length);
+
+        for (WeightStorage storage : new WeightStorage[] { WeightStorage.FLOAT32, WeightStorage.INT8 }) {
+            LibLinearDecoder decoder = new LibLinearDecoder(args[0], storage);
+            int flips = 0;
+            correct = 0;
+            for (int i = 0; i < expected.length; i++) {
+                int label = decoder.decode(instances.get(i));
+                if (label != expected[i])
+                    flips++;
+                if (label == gold.get(i))
+                    correct++;
+            }
+            report(storage, decoder, flips, correct, expected.length);
+        }
+    }
+
+    private static void report(WeightStorage storage, LibLinearDecoder decoder, int flips, int correct, int total) {
+        System.out.println(String.format("%-8s weights: %9d bytes  flips: %d (%.4f%%)  accuracy: %.4f%%",
+                storage.name().toLowerCase(), decoder.getWeights().getWeightBytes(), flips,
+                total == 0 ? 0 : 100.0 * flips / total, total == 0 ? 0 : 100.0 * correct / total));
+    }
+
+    /**
+     * Reads a LIBLINEAR feature file (the feature values are ignored, as all
+     * the assertion features are binary)
+     */
+    static void readFeatureFile(String path, List<int[]> instances, List<Integer> labels) throws IOException {
+        BufferedReader input = new BufferedReader(new InputStreamReader(new FileInputStream(path), "UTF-8"));
+        try {
+            String line = null;
+            while ((line = input.readLine()) != null) {
+                String[] toks = line.trim().split("\\s+");
+                if (toks.length == 0 || toks[0].length() == 0)
+                    continue;
+                int[] featureIdxs = new int[toks.length - 1];
+                for (int i = 1; i < toks.length; i++) {
+                    featureIdxs[i - 1] = Integer.parseInt(toks[i].substring(0, toks[i].indexOf(':')));
+                }
+                labels.add(Integer.parseInt(toks[0]));
+                instances.add(featureIdxs);
+            }
+        } finally {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+/**
+ * On-heap int8 weights in the feature-major layout of
+ * <code>FeatureMajorWeightStore</code>. The features are split in blocks of
+ * <code>blockSize</code> rows and every (block, class) pair has its own scale:
+ * <code>weight = scale * q</code> where <code>scale = max|w| / 127</code> over the
+ * block. A block size of at least the row count gives one scale per class.
+ * About an eighth of the memory of the double layout.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class QuantizedWeightStore extends WeightStore {
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+    private static final int QMAX = 127;
+
+    private byte[] q;
+    private double[] scales; /* scales[(featIdx / blockSize) * classCount + c] */
+    private int blockSize;
+
+    public QuantizedWeightStore(double[] rows, int classCount, int rowCount) {
+        this(rows, classCount, rowCount, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param rows the weights in the feature-major order of the model files
+     */
+    public QuantizedWeightStore(double[] rows, int classCount, int rowCount, int blockSize) {
+        super(classCount, rowCount);
+        this.blockSize = blockSize;
+
+        // Row 0 is padding, so the weights of feature id f sit at row f
+        int blockCount = (rowCount + 1 + blockSize - 1) / blockSize;
+        scales = new double[blockCount * classCount];
+        for (int k = 0; k < rowCount * classCount; k++) {
+            int s = getScaleIdx(k / classCount + 1, k % classCount);
+            scales[s] = Math.max(scales[s], Math.abs(rows[k]));
+        }
+        for (int s = 0; s < scales.length; s++) {
+            scales[s] = scales[s] > 0 ? scales[s] / QMAX : 1;
+        }
+
+        q = new byte[(rowCount + 1) * classCount];
+        for (int k = 0; k < rowCount * classCount; k++) {
+            long level = Math.round(rows[k] / scales[getScaleIdx(k / classCount + 1, k % classCount)]);
+            q[classCount + k] = (byte) Math.max(-QMAX, Math.min(QMAX, level));
+        }
+    }
+
+    private int getScaleIdx(int featIdx, int classIdx) {
+        return (featIdx / blockSize) * classCount + classIdx;
+    }
+
+    public double get(int row, int classIdx) {
+        return scales[getScaleIdx(row + 1, classIdx)] * q[(row + 1) * classCount + classIdx];
+    }
+
+    public long getWeightBytes() {
+        return q.length + 8L * scales.length;
+    }
+
+    public void accumulate(int[] featureIdxs, int from, int to, int featureCount, double[] decValues, int decOffset) {
+        final int classCount = this.classCount;
+        final byte[] q = this.q;
+        final double[] scales = this.scales;
+        for (int j = from; j < to; j++) {
+            int featIdx = featureIdxs[j];
+            if (featIdx <= featureCount) {
+                int offset = featIdx * classCount;
+                int scaleOffset = (featIdx / blockSize) * classCount;
+                for (int i = 0; i < classCount; i++) {
+                    decValues[decOffset + i] += scales[scaleOffset + i] * q[offset + i];
+                }
+            }
+        }
+    }
+}
@@ -21,8 +21,12 @@
 
 package edu.uw.bhi.uwassert;
 
+import name.adibejan.nlp.TextProcessor;
+import name.adibejan.string.Token;
 import name.adibejan.util.IntPair;
 
+import java.util.List;
+
 /**
  * Data structure for sentence level resources
  *
@@ -33,6 +37,76 @@ import name.adibejan.util.IntPair;
 public class SentenceLevelResources {
     public String[] toks;
 
+    /* sentence level analyses, computed once for all the concepts of the sentence */
+    private String flat;
+    private String[] lowerToks;
+    private boolean[] puncts;
+    private int[] negPrefixIds;
+    SignalMatcher.Spans signals;
+    SignalMatcher.Spans negSignals;
+
+    /**
+     * Returns the tokens joined by spaces (computed once per sentence)
+     */
+    public String getFlat() {
+        if (flat == null)
+            flat = TextProcessor.flatten(toks, " ");
+        return flat;
+    }
+
+    /**
+     * Returns the lowercase tokens (computed once per sentence)
+     */
+    public String[] getLowerTokens() {
+        if (lowerToks == null) {
+            lowerToks = new String[toks.length];
+            for (int i = 0; i < toks.length; i++)
+                lowerToks[i] = toks[i].toLowerCase();
+        }
+        return lowerToks;
+    }
+
+    /**
+     * Returns for every token whether it only has punctuation characters
+     * (computed once per sentence)
+     */
+    public boolean[] getPunctuationFlags() {
+        if (puncts == null) {
+            puncts = new boolean[toks.length];
+            for (int i = 0; i < toks.length; i++)
+                puncts[i] = Token.isPunctuations(toks[i]);
+        }
+        return puncts;
+    }
+
+    /**
+     * Returns for every token the index of the first negation prefix (in
+     * <code>LexFeatureExtractor.negPrefixes</code>) its lowercase form starts
+     * with without being equal to it, or -1 for the punctuations and the tokens
+     * with no negation prefix (computed once per sentence)
+     */
+    public int[] getNegPrefixIds() {
+        if (negPrefixIds == null) {
+            String[] lower = getLowerTokens();
+            boolean[] punct = getPunctuationFlags();
+            List<String> negPrefixes = LexFeatureExtractor.negPrefixes;
+            negPrefixIds = new int[toks.length];
+            for (int i = 0; i < toks.length; i++) {
+                negPrefixIds[i] = -1;
+                if (punct[i])
+                    continue;
+                for (int p = 0; p < negPrefixes.size(); p++) {
+                    String negPrefix = negPrefixes.get(p);
+                    if (!lower[i].equals(negPrefix) && lower[i].startsWith(negPrefix)) {
+                        negPrefixIds[i] = p;
+                        break;
+                    }
+                }
+            }
+        }
+        return negPrefixIds;
+    }
+
     /**
      * Returns the sentence as a concatenation of stems (from the general splat stem sequence)
      */
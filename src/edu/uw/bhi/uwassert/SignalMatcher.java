@@ -0,0 +1,249 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Signal lexicons (bio-negation and kinship cues) compiled into a token level
+ * Aho-Corasick automaton. The signal spans of a sentence are found in one pass
+ * over its lowercase tokens and resolved with longest-match semantics: the
+ * longer spans are kept first, the spans of the same length from left to right,
+ * and a span is dropped when it shares a token with a span already kept (the
+ * resolution of <code>IntPair.insertSpecial</code> over the n-grams of
+ * decreasing length).
+ *
+ * Each signal belongs to one or more lexicons (bits of an int mask) so that a
+ * single automaton serves all the lexicons and any combination of them.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class SignalMatcher {
+    public static final int BIONEG = 1;
+    public static final int KINSHIP = 1 << 1;
+
+    /* the longest signal span (in tokens) looked for in a sentence */
+    public static final int MAX_LENGTH = 5;
+
+    private final Node root = new Node(0);
+    private int size;
+
+    private static class Node {
+        Map<String, Node> children;
+        final int depth;
+        int lexicons;  /* the lexicons of the signal ending here */
+        int entries;   /* the number of times the signal was added */
+        Node fail;     /* the longest proper suffix in the automaton */
+        Node output;   /* the longest proper suffix that ends a signal */
+
+        Node(int depth) {
+            this.depth = depth;
+        }
+
+        Node child(String tok) {
+            return children == null ? null : children.get(tok);
+        }
+
+        Node addChild(String tok) {
+            if (children == null)
+                children = new HashMap<String, Node>(4);
+            Node child = children.get(tok);
+            if (child == null) {
+                child = new Node(depth + 1);
+                children.put(tok, child);
+            }
+            return child;
+        }
+    }
+
+    /**
+     * Signal spans of a sentence, in the order they were kept (decreasing
+     * length, then increasing start)
+     */
+    public static class Spans {
+        public final int[] starts;
+        public final int[] ends;
+        public int size;
+
+        Spans(int capacity) {
+            starts = new int[capacity];
+            ends = new int[capacity];
+        }
+
+        /**
+         * Returns the index of the span that ends the closest before a given
+         * token, or -1 if no span ends before it
+         */
+        public int getClosestBefore(int position) {
+            int closest = -1;
+            for (int k = 0; k < size; k++)
+                if (ends[k] < position && (closest == -1 || ends[k] > ends[closest]))
+                    closest = k;
+            return closest;
+        }
+    }
+
+    public SignalMatcher() {
+        root.fail = root;
+    }
+
+    /**
+     * Adds a signal to the lexicons of a mask; the signals longer than
+     * <code>MAX_LENGTH</code> tokens are never matched in a sentence. The
+     * automaton has to be compiled again after the signals are added.
+     */
+    public void add(int lexicons, String[] signal) {
+        if (signal.length == 0)
+            return;
+        Node node = root;
+        for (String tok : signal)
+            node = node.addChild(tok);
+        node.lexicons |= lexicons;
+        node.entries++;
+        size++;
+    }
+
+    /**
+     * Computes the failure and output links (breadth first)
+     */
+    public void compile() {
+        List<Node> queue = new ArrayList<Node>();
+        root.fail = root;
+        root.output = null;
+        queue.add(root);
+        for (int head = 0; head < queue.size(); head++) {
+            Node node = queue.get(head);
+            if (node.children == null)
+                continue;
+            for (Map.Entry<String, Node> entry : node.children.entrySet()) {
+                Node child = entry.getValue();
+                if (node == root) {
+                    child.fail = root;
+                } else {
+                    Node fail = node.fail;
+                    while (fail != root && fail.child(entry.getKey()) == null)
+                        fail = fail.fail;
+                    Node next = fail.child(entry.getKey());
+                    child.fail = next == null ? root : next;
+                }
+                child.output = child.fail.lexicons != 0 ? child.fail : child.fail.output;
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of signals
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tests if a token is a one token signal of the lexicons of a mask
+     */
+    public boolean contains(int lexicons, String tok) {
+        Node node = root.child(tok);
+        return node != null && (node.lexicons & lexicons) != 0;
+    }
+
+    /**
+     * Tests if a token sequence is a signal of the lexicons of a mask
+     */
+    public boolean contains(int lexicons, String[] signal) {
+        Node node = find(signal, 0, signal.length - 1);
+        return node != null && (node.lexicons & lexicons) != 0;
+    }
+
+    /**
+     * Returns how many times the signal made of a token span was added, over
+     * all the lexicons (0 if the span is not a signal)
+     */
+    public int getEntryCount(String[] lowerToks, int start, int end) {
+        Node node = find(lowerToks, start, end);
+        return node == null ? 0 : node.entries;
+    }
+
+    private Node find(String[] toks, int start, int end) {
+        Node node = root;
+        for (int i = start; i <= end && node != null; i++)
+            node = node.child(toks[i]);
+        return node == root ? null : node;
+    }
+
+    /**
+     * Finds the signal spans of the lexicons of a mask
+     *
+     * @param lowerToks the lowercase tokens of the sentence
+     */
+    public Spans match(String[] lowerToks, int lexicons) {
+        int n = lowerToks.length;
+        /* candidate starts by length; they come in increasing order of their ends */
+        int[][] candidates = new int[MAX_LENGTH + 1][];
+        int[] counts = new int[MAX_LENGTH + 1];
+        int total = 0;
+
+        Node node = root;
+        for (int i = 0; i < n; i++) {
+            Node next;
+            while ((next = node.child(lowerToks[i])) == null && node != root)
+                node = node.fail;
+            node = next == null ? root : next;
+            for (Node match = node.lexicons != 0 ? node : node.output; match != null; match = match.output) {
+                if ((match.lexicons & lexicons) == 0 || match.depth > MAX_LENGTH)
+                    continue;
+                int len = match.depth;
+                if (candidates[len] == null)
+                    candidates[len] = new int[n];
+                candidates[len][counts[len]++] = i - len + 1;
+                total++;
+            }
+        }
+
+        Spans spans = new Spans(total);
+        if (total == 0)
+            return spans;
+        boolean[] covered = new boolean[n];
+        for (int len = MAX_LENGTH; len >= 1; len--) {
+            for (int c = 0; c < counts[len]; c++) {
+                int start = candidates[len][c];
+                int end = start + len - 1;
+                boolean free = true;
+                for (int i = start; i <= end && free; i++)
+                    free = !covered[i];
+                if (!free)
+                    continue;
+                for (int i = start; i <= end; i++)
+                    covered[i] = true;
+                spans.starts[spans.size] = start;
+                spans.ends[spans.size] = end;
+                spans.size++;
+            }
+        }
+        return spans;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+/**
+ * On-heap sparse weights in CSR form: for feature id f the non-zero weights
+ * are <code>values[rowStart[f] .. rowStart[f+1]-1]</code> with their classes in
+ * <code>classIdxs</code>. A bitmap of the features that have at least one
+ * weight lets the decoder skip absent features without touching the rows.
+ * Weights whose magnitude is below <code>epsilon</code> are dropped.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class SparseWeightStore extends WeightStore {
+    private int[] rowStart;
+    private byte[] classIdxs;
+    private double[] values;
+    private long[] present;
+
+    public SparseWeightStore(double[] rows, int classCount, int rowCount) {
+        this(rows, classCount, rowCount, 0);
+    }
+
+    /**
+     * @param rows the weights in the feature-major order of the model files
+     */
+    public SparseWeightStore(double[] rows, int classCount, int rowCount, double epsilon) {
+        super(classCount, rowCount);
+        if (classCount > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("Too many classes for the sparse store [" + classCount + "]");
+
+        int nonZero = 0;
+        for (int k = 0; k < rowCount * classCount; k++) {
+            if (isKept(rows[k], epsilon))
+                nonZero++;
+        }
+
+        // Row 0 is padding, so the weights of feature id f sit at row f
+        rowStart = new int[rowCount + 2];
+        classIdxs = new byte[nonZero];
+        values = new double[nonZero];
+        present = new long[(rowCount + 1 + 63) >>> 6];
+        int n = 0;
+        for (int featIdx = 1; featIdx <= rowCount; featIdx++) {
+            rowStart[featIdx] = n;
+            int offset = (featIdx - 1) * classCount;
+            for (int i = 0; i < classCount; i++) {
+                if (isKept(rows[offset + i], epsilon)) {
+                    classIdxs[n] = (byte) i;
+                    values[n] = rows[offset + i];
+                    n++;
+                }
+            }
+            if (n > rowStart[featIdx])
+                present[featIdx >>> 6] |= 1L << featIdx;
+        }
+        rowStart[rowCount + 1] = n;
+    }
+
+    private static boolean isKept(double weight, double epsilon) {
+        return weight != 0 && Math.abs(weight) >= epsilon;
+    }
+
+    /**
+     * Returns the number of stored (non-zero) weights
+     */
+    public int getNonZeroCount() {
+        return values.length;
+    }
+
+    /**
+     * Returns the number of features with at least one stored weight
+     */
+    public int getPresentFeatureCount() {
+        int count = 0;
+        for (long word : present) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public double get(int row, int classIdx) {
+        int featIdx = row + 1;
+        for (int k = rowStart[featIdx]; k < rowStart[featIdx + 1]; k++) {
+            if (classIdxs[k] == classIdx)
+                return values[k];
+        }
+        return 0;
+    }
+
+    public long getWeightBytes() {
+        return 4L * rowStart.length + classIdxs.length + 8L * values.length + 8L * present.length;
+    }
+
+    public void accumulate(int[] featureIdxs, int from, int to, int featureCount, double[] decValues, int decOffset) {
+        final long[] present = this.present;
+        for (int j = from; j < to; j++) {
+            int featIdx = featureIdxs[j];
+            if (featIdx <= featureCount && (present[featIdx >>> 6] & (1L << featIdx)) != 0) {
+                for (int k = rowStart[featIdx], end = rowStart[featIdx + 1]; k < end; k++) {
+                    decValues[decOffset + classIdxs[k]] += values[k];
+                }
+            }
+        }
+    }
+}
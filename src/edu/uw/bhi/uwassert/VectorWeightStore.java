@@ -0,0 +1,104 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * On-heap feature-major weights scored with the JDK Vector API. Every feature
+ * row is padded to a multiple of the preferred vector length, so the class
+ * weights of one feature load as whole vectors and are added lane-wise into
+ * the class scores; the argmax is also computed in vector lanes.
+ *
+ * This class needs the jdk.incubator.vector module at compile and run time
+ * (see the co.vector target of build.xml). <code>LibLinearDecoder</code> only
+ * loads it by reflection and falls back to <code>FeatureMajorWeightStore</code>
+ * when the module is not present.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK16 | October 2026
+ */
+public class VectorWeightStore extends WeightStore {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private double[] w;
+    private int stride;
+
+    /**
+     * @param rows the weights in the feature-major order of the model files
+     */
+    public VectorWeightStore(double[] rows, int classCount, int rowCount) {
+        super(classCount, rowCount);
+        stride = SPECIES.loopBound(classCount + SPECIES.length() - 1);
+
+        // Row 0 is padding, so the weights of feature id f start at f * stride
+        w = new double[(rowCount + 1) * stride];
+        for (int row = 0; row < rowCount; row++) {
+            System.arraycopy(rows, row * classCount, w, (row + 1) * stride, classCount);
+        }
+    }
+
+    public double get(int row, int classIdx) {
+        return w[(row + 1) * stride + classIdx];
+    }
+
+    public long getWeightBytes() {
+        return 8L * w.length;
+    }
+
+    public void accumulate(int[] featureIdxs, int from, int to, int featureCount, double[] decValues, int decOffset) {
+        for (int c = 0; c < classCount; c += SPECIES.length()) {
+            DoubleVector acc = DoubleVector.zero(SPECIES);
+            for (int j = from; j < to; j++) {
+                int featIdx = featureIdxs[j];
+                if (featIdx <= featureCount) {
+                    acc = acc.add(DoubleVector.fromArray(SPECIES, w, featIdx * stride + c));
+                }
+            }
+            // The padding lanes past classCount are masked off, so the sums go straight into the scores
+            VectorMask<Double> mask = SPECIES.indexInRange(c, classCount);
+            acc.add(DoubleVector.fromArray(SPECIES, decValues, decOffset + c, mask))
+                    .intoArray(decValues, decOffset + c, mask);
+        }
+    }
+
+    public int argMax(double[] decValues, int decOffset) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int c = 0; c < classCount; c += SPECIES.length()) {
+            VectorMask<Double> mask = SPECIES.indexInRange(c, classCount);
+            max = Math.max(max, DoubleVector.fromArray(SPECIES, decValues, decOffset + c, mask)
+                    .reduceLanes(VectorOperators.MAX, mask));
+        }
+        for (int c = 0; c < classCount; c += SPECIES.length()) {
+            VectorMask<Double> mask = SPECIES.indexInRange(c, classCount);
+            int lane = DoubleVector.fromArray(SPECIES, decValues, decOffset + c, mask)
+                    .compare(VectorOperators.EQ, max, mask).firstTrue();
+            if (lane < SPECIES.length())
+                return c + lane;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+/**
+ * Storage modes for the <code>LibLinearDecoder</code> weights
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public enum WeightStorage {
+    /** heap arrays, one per class */
+    HEAP,
+    /** heap array interleaved by feature (class weights of a feature are adjacent) */
+    FEATURE_MAJOR,
+    /** single-precision feature-major heap array */
+    FLOAT32,
+    /** int8 feature-major heap array with one scale per block of 256 features and class (see QuantizedWeightStore) */
+    INT8,
+    /** CSR heap arrays holding only the non-zero weights */
+    SPARSE,
+    /** feature-major heap array scored with the JDK Vector API (falls back to FEATURE_MAJOR) */
+    VECTOR,
+    /** read-only memory map of a binary model file, shared through the page cache */
+    MAPPED;
+}
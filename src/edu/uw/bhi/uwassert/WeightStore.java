@@ -0,0 +1,104 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package edu.uw.bhi.uwassert;
+
+/**
+ * Storage of the LIBLINEAR weight matrix used by <code>LibLinearDecoder</code>.
+ * Rows are 0-based feature indexes (feature id - 1); the bias row, when
+ * present, is the row at index nr_feature.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public abstract class WeightStore {
+    protected int classCount;
+    protected int rowCount;
+
+    protected WeightStore(int classCount, int rowCount) {
+        this.classCount = classCount;
+        this.rowCount = rowCount;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the weight of a class for a 0-based row
+     */
+    public abstract double get(int row, int classIdx);
+
+    /**
+     * Returns the number of bytes used by the weights
+     */
+    public abstract long getWeightBytes();
+
+    /**
+     * Returns the index of the highest decision value (the first one on ties)
+     */
+    public int argMax(double[] decValues) {
+        return argMax(decValues, 0);
+    }
+
+    /**
+     * Returns the index of the highest of the <code>classCount</code> decision
+     * values starting at <code>decOffset</code> (the first one on ties)
+     */
+    public int argMax(double[] decValues, int decOffset) {
+        int decMaxIdx = 0;
+        for (int i = 1; i < classCount; i++) {
+            if (decValues[decOffset + i] > decValues[decOffset + decMaxIdx]) {
+                decMaxIdx = i;
+            }
+        }
+        return decMaxIdx;
+    }
+
+    /**
+     * Adds the weights of the given 1-based feature ids to <code>decValues</code>.
+     * Feature ids above <code>featureCount</code> are ignored.
+     */
+    public void accumulate(int[] featureIdxs, int featureCount, double[] decValues) {
+        accumulate(featureIdxs, 0, featureIdxs.length, featureCount, decValues, 0);
+    }
+
+    /**
+     * Adds the weights of the feature ids <code>featureIdxs[from .. to-1]</code>
+     * to the decision values <code>decValues[decOffset .. decOffset+classCount-1]</code>.
+     * Feature ids above <code>featureCount</code> are ignored.
+     */
+    public void accumulate(int[] featureIdxs, int from, int to, int featureCount, double[] decValues, int decOffset) {
+        for (int j = from; j < to; j++) {
+            int featIdx = featureIdxs[j];
+            if (featIdx <= featureCount) {
+                for (int i = 0; i < classCount; i++) {
+                    decValues[decOffset + i] += get(featIdx-1, i);
+                }
+            }
+        }
+    }
+}
@@ -29,6 +29,10 @@ import java.io.OutputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 
 import static java.lang.System.out;
 
@@ -164,4 +168,52 @@ public class FileUtil {
         }
         return count;
     }
+
+    /**
+     * Creates an empty temporary file in the directory of a given path, to be
+     * written and then published over the path with
+     * <code>replaceAtomically</code>
+     */
+    public static File createSiblingTempFile(String path) throws IOException {
+        File target = new File(path).getAbsoluteFile();
+        return File.createTempFile("." + target.getName() + ".", ".tmp", target.getParentFile());
+    }
+
+    /**
+     * Renames a (fully written) file over a given path in one atomic step:
+     * readers of the path see either the old or the new file, never a partial
+     * one, and a reader that has the old file open or mapped keeps the old
+     * content. The file must be in the same directory (file system) as the path.
+     */
+    public static void replaceAtomically(File from, String to) throws IOException {
+        try {
+            Files.move(from.toPath(), new File(to).toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ioe) {
+            from.delete();
+            throw ioe;
+        }
+    }
+
+    /**
+     * Writes the remaining bytes of a buffer into a temporary file next to a
+     * given path and publishes it over the path (see
+     * <code>replaceAtomically</code>)
+     */
+    public static void writeAtomically(ByteBuffer buffer, String path) throws IOException {
+        File tmp = createSiblingTempFile(path);
+        boolean written = false;
+        FileChannel channel = new FileOutputStream(tmp).getChannel();
+        try {
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(true);
+            written = true;
+        } finally {
+            channel.close();
+            if (!written)
+                tmp.delete();
+        }
+        replaceAtomically(tmp, path);
+    }
 }
@@ -21,15 +21,23 @@
 
 package name.adibejan.learning.features;
 
+import name.adibejan.io.TextWriterManager;
 import name.adibejan.util.Alphabet;
+import name.adibejan.util.AlphabetLookup;
+import name.adibejan.util.IntSetBuffer;
 import name.adibejan.util.dynenum.DynamicEnum;
 import name.adibejan.util.dynenum.DynamicEnumSet;
 
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.util.List;
 
-import edu.uw.bhi.uwassert.AssertConfig;
 import edu.uw.bhi.uwassert.AssertTargetClass;
 
+import static java.lang.System.out;
+
 /**
  * Tool for transforming readable format feature files into SVM format files.
  * The management of features uses the <code>DynamicEnum</code> data structure.
@@ -41,12 +49,20 @@ import edu.uw.bhi.uwassert.AssertTargetClass;
 
 public class DynamicFeatureManager<DE extends DynamicEnum> extends FeatureManager {
     private DynamicEnumSet<DE> typeFilter;
+    private DynamicEnum featureTypes;
+    private boolean[] acceptedTypes;
 
     /**
-     * Establishes the feature type filter
+     * Establishes the feature types and their filter. The filter is compiled
+     * into a mask by feature type ordinal, so later changes of the set are not
+     * seen.
      */
-    public void setFeatureTypeFilter(DynamicEnumSet<DE> typeFilter) {
+    public void setFeatureTypeFilter(DynamicEnumSet<DE> typeFilter, DynamicEnum featureTypes) {
         this.typeFilter = typeFilter;
+        this.featureTypes = featureTypes;
+        acceptedTypes = new boolean[featureTypes.size()];
+        for (int ordinal = 0; ordinal < acceptedTypes.length; ordinal++)
+            acceptedTypes[ordinal] = typeFilter.contains(ordinal);
     }
 
     /**
@@ -57,7 +73,97 @@ public class DynamicFeatureManager<DE extends DynamicEnum> extends FeatureManage
         assert typeFilter != null : "The feature filter is not set!";
     }
 
+    /**
+     * Returns the feature indices of an instance and adds the unseen features to
+     * the alphabet (training mode)
+     */
     public <TC extends Enum<TC>> int[] getFeatureIndices(Alphabet<String> falph, List<String> features) {
+        return getFeatureIndices(falph, features, true);
+    }
+
+    /**
+     * Returns the feature indices of an instance without changing the alphabet
+     * (inference mode): the unknown features are skipped
+     */
+    public <TC extends Enum<TC>> int[] getFeatureIndices(AlphabetLookup<String> falph, List<String> features) {
+        return getFeatureIndices(falph, features, false);
+    }
+
+    /**
+     * Returns a sink that maps the extracted features to their indices with this
+     * manager's feature type filter (inference mode)
+     */
+    public IndexFeatureSink getIndexSink(TypedFeatureLookup lookup) {
+        return getIndexSink(lookup, new IntSetBuffer());
+    }
+
+    /**
+     * Returns a sink that writes the feature indices of an instance into a
+     * reusable buffer (e.g. one per thread)
+     */
+    public IndexFeatureSink getIndexSink(TypedFeatureLookup lookup, IntSetBuffer buffer) {
+        checkSetting();
+        return new IndexFeatureSink(lookup, acceptedTypes, buffer);
+    }
+
+    /**
+     * Transforms a readable format feature file (<code>id target type#value</code>
+     * lines grouped by instance id) into SVM format files, as configured by the
+     * data splitting and feature weighting schemes. The unseen features are
+     * added when the alphabet is an <code>Alphabet</code>; any other lookup
+     * (e.g. a <code>HashingAlphabet</code>) is only read and its unknown
+     * features are skipped.
+     */
+    public void transformFeatureFile(String featureFile, AlphabetLookup<String> falph) {
+        checkSetting();
+        boolean update = falph instanceof Alphabet;
+        TextWriterManager writerManager = new TextWriterManager();
+        initWriterManager(writerManager, featureFile);
+        DataInstance currentInstance = null;
+        instanceCounter = 1;
+
+        BufferedReader input = null;
+        try {
+            input = new BufferedReader(new InputStreamReader(new FileInputStream(featureFile), "UTF-8"));
+            String line = null;
+            while ((line = input.readLine()) != null) {
+                DynamicFeaturePair featurePair = DynamicFeaturePair.getMultiClassTargetInstance(line,
+                        AssertTargetClass.class, featureTypes);
+                if (featurePair == null || !acceptedTypes[featurePair.featureType.ordinal()])
+                    continue;
+                if (update)
+                    ((Alphabet<String>) falph).update(featurePair.pairValue);
+                int featureIdx = falph.getIndex(featurePair.pairValue);
+                if (featureIdx == AlphabetLookup.UNKNOWN)
+                    continue;
+                if (currentInstance == null) {
+                    currentInstance = new DataInstance(featurePair, featureIdx);
+                } else if (currentInstance.id != featurePair.getId()) {
+                    manageInstance(currentInstance, writerManager);
+                    instanceCounter++;
+                    currentInstance = new DataInstance(featurePair, featureIdx);
+                } else {
+                    currentInstance.update(featurePair, featureIdx);
+                }
+            }
+            if (currentInstance != null)
+                manageInstance(currentInstance, writerManager);
+        } catch (IOException ioe) {
+            out.println("Error in reading the file: " + ioe.getMessage());
+            ioe.printStackTrace();
+        } finally {
+            writerManager.close();
+            try {
+                if (input != null)
+                    input.close();
+            } catch (IOException ioe) {
+                out.println("Error in closing the file: " + ioe.getMessage());
+                ioe.printStackTrace();
+            }
+        }
+    }
+
+    private int[] getFeatureIndices(AlphabetLookup<String> falph, List<String> features, boolean update) {
         checkSetting();
         DynamicFeaturePair featurePair = null;
         DataInstance currentInstance = null;
@@ -69,16 +175,20 @@ public class DynamicFeatureManager<DE extends DynamicEnum> extends FeatureManage
                 if (line == null)
                     break;
 
-                featurePair = DynamicFeaturePair.getMultiClassTargetInstance(line, AssertTargetClass.class, AssertConfig.featuresEnum);
+                featurePair = DynamicFeaturePair.getMultiClassTargetInstance(line, AssertTargetClass.class, featureTypes);
                 if (featurePair == null)
                     continue;
                 
-                if (typeFilter.contains(featurePair.featureType.name())) {
-                    falph.update(featurePair.pairValue);
+                if (acceptedTypes[featurePair.featureType.ordinal()]) {
+                    if (update)
+                        ((Alphabet<String>) falph).update(featurePair.pairValue);
+                    int featureIdx = falph.getIndex(featurePair.pairValue);
+                    if (featureIdx == AlphabetLookup.UNKNOWN)
+                        continue;
                     if (currentID != featurePair.instanceID) {
-                        currentInstance = new DataInstance(featurePair, falph.getIndex(featurePair.pairValue));
+                        currentInstance = new DataInstance(featurePair, featureIdx);
                     } else {
-                        currentInstance.update(featurePair, falph.getIndex(featurePair.pairValue));
+                        currentInstance.update(featurePair, featureIdx);
                     }
                     currentID = featurePair.instanceID;
                 }
@@ -86,6 +196,15 @@ public class DynamicFeatureManager<DE extends DynamicEnum> extends FeatureManage
         } catch (Exception ex) {
             ex.printStackTrace();
         } 
+        if (currentInstance == null)
+            return new int[0];
         return currentInstance.getKeys();
     }
-}
\ No newline at end of file
+
+    /**
+     * The whitespace chars of the <code>\s</code> regular expression class
+     */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,107 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package name.adibejan.learning.features;
+
+import name.adibejan.util.AlphabetLookup;
+import name.adibejan.util.IntSetBuffer;
+
+/**
+ * Feature sink that maps the features of an instance straight to their
+ * alphabet indices (inference mode). It keeps the rules of the readable
+ * format: a value is cut at its trailing whitespaces, empty values and values
+ * with inner whitespaces are skipped, as well as the types outside the filter
+ * and the unknown features. The distinct indices are kept in insertion order
+ * in an <code>IntSetBuffer</code>, which can be reused from one instance to the
+ * next.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class IndexFeatureSink implements FeatureSink {
+    private final TypedFeatureLookup lookup;
+    private final boolean[] acceptedTypes;
+    private final IntSetBuffer features;
+
+    /**
+     * @param acceptedTypes the type filter, by feature type ordinal
+     */
+    public IndexFeatureSink(TypedFeatureLookup lookup, boolean[] acceptedTypes) {
+        this(lookup, acceptedTypes, new IntSetBuffer());
+    }
+
+    /**
+     * Builds a sink that writes into a given buffer; the buffer is cleared
+     */
+    public IndexFeatureSink(TypedFeatureLookup lookup, boolean[] acceptedTypes, IntSetBuffer features) {
+        this.lookup = lookup;
+        this.acceptedTypes = acceptedTypes;
+        this.features = features;
+        features.clear();
+    }
+
+    public void add(int typeOrdinal, CharSequence value) {
+        int end = value.length();
+        while (end > 0 && DynamicFeatureManager.isWhitespace(value.charAt(end - 1)))
+            end--;
+        if (end == 0)
+            return;
+        for (int i = 0; i < end; i++) {
+            if (DynamicFeatureManager.isWhitespace(value.charAt(i)))
+                return;
+        }
+        if (!acceptedTypes[typeOrdinal])
+            return;
+        int featureIdx = lookup.getIndex(typeOrdinal, value, 0, end);
+        if (featureIdx != AlphabetLookup.UNKNOWN)
+            features.add(featureIdx);
+    }
+
+    /**
+     * Returns the distinct indices of the features added since the last reset
+     */
+    public int[] getFeatureIndices() {
+        return features.toArray();
+    }
+
+    /**
+     * Returns the backing array of the distinct indices; only the first
+     * <code>size()</code> entries are valid
+     */
+    public int[] getIndexBuffer() {
+        return features.elements();
+    }
+
+    /**
+     * Returns the number of distinct indices
+     */
+    public int size() {
+        return features.size();
+    }
+
+    /**
+     * Starts a new instance
+     */
+    public void reset() {
+        features.clear();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package name.adibejan.learning.features;
+
+import name.adibejan.io.TextWriter;
+import name.adibejan.util.dynenum.DynamicEnum;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feature sink that writes the features in the readable format
+ * (<code>id target feature_type#feature_value</code>), either in a list or
+ * directly through a <code>TextWriter</code> (e.g. for a training feature file).
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class TextFeatureSink implements FeatureSink {
+    private final String prefix;
+    private final DynamicEnum featureTypes;
+    private final List<String> features;
+    private final TextWriter writer;
+
+    /**
+     * Collects the feature lines in a list
+     *
+     * @param prefix the <code>id target</code> part of the lines
+     */
+    public TextFeatureSink(String prefix, DynamicEnum featureTypes) {
+        this.prefix = prefix;
+        this.featureTypes = featureTypes;
+        this.features = new ArrayList<String>();
+        this.writer = null;
+    }
+
+    /**
+     * Writes the feature lines with a writer
+     *
+     * @param prefix the <code>id target</code> part of the lines
+     */
+    public TextFeatureSink(String prefix, DynamicEnum featureTypes, TextWriter writer) {
+        this.prefix = prefix;
+        this.featureTypes = featureTypes;
+        this.features = null;
+        this.writer = writer;
+    }
+
+    public void add(int typeOrdinal, CharSequence value) {
+        String feature = prefix + " " + featureTypes.get(typeOrdinal).name() + FeaturePair.DELIMITER + value;
+        if (writer != null)
+            writer.println(feature);
+        else
+            features.add(feature);
+    }
+
+    /**
+     * Returns the collected feature lines (null when writing with a writer)
+     */
+    public List<String> getFeatures() {
+        return features;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package name.adibejan.learning.features;
+
+import name.adibejan.util.AlphabetLookup;
+import name.adibejan.util.PrefixLookup;
+import name.adibejan.util.dynenum.DynamicEnum;
+
+/**
+ * Looks up feature indices by feature type ordinal and feature value, i.e. the
+ * alphabet key <code>feature_type#feature_value</code>, without building the
+ * key. The <code>feature_type#</code> prefixes and their hash states are
+ * computed once; alphabets that do not implement <code>PrefixLookup</code> fall
+ * back to a concatenated String key.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public class TypedFeatureLookup {
+    private final AlphabetLookup<String> alph;
+    private final PrefixLookup prefixLookup;
+    private final String[] prefixes;
+    private final long[] prefixStates;
+
+    public TypedFeatureLookup(AlphabetLookup<String> alph, DynamicEnum featureTypes) {
+        this.alph = alph;
+        this.prefixLookup = alph instanceof PrefixLookup ? (PrefixLookup) alph : null;
+        prefixes = new String[featureTypes.size()];
+        prefixStates = new long[featureTypes.size()];
+        for (int ordinal = 0; ordinal < prefixes.length; ordinal++) {
+            prefixes[ordinal] = featureTypes.get(ordinal).name() + FeaturePair.DELIMITER;
+            if (prefixLookup != null)
+                prefixStates[ordinal] = prefixLookup.getPrefixState(prefixes[ordinal]);
+        }
+    }
+
+    /**
+     * Returns the index of a feature, or <code>AlphabetLookup.UNKNOWN</code>
+     */
+    public int getIndex(int typeOrdinal, CharSequence value) {
+        return getIndex(typeOrdinal, value, 0, value.length());
+    }
+
+    /**
+     * Returns the index of a feature whose value is <code>value[start, end)</code>,
+     * or <code>AlphabetLookup.UNKNOWN</code>
+     */
+    public int getIndex(int typeOrdinal, CharSequence value, int start, int end) {
+        if (prefixLookup != null)
+            return prefixLookup.getIndex(prefixStates[typeOrdinal], prefixes[typeOrdinal], value, start, end);
+        return alph.getIndex(prefixes[typeOrdinal] + value.subSequence(start, end));
+    }
+
+    /**
+     * Returns the underlying alphabet
+     */
+    public AlphabetLookup<String> getAlphabet() {
+        return alph;
+    }
+}
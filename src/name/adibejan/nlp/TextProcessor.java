@@ -54,7 +54,19 @@ public class TextProcessor {
             throw new IndexOutOfBoundsException(
                     "Original boundaries " + obnd + " are out of bounds [0," + otoks.size() + "]");
 
-        List<IntPair> indexes = alignTokenIndexes(otoks, ntoks);
+        return getTokenIndexes(alignTokenIndexes(otoks, ntoks), obnd);
+    }
+
+    /**
+     * Same as <code>getTokenIndexes(List, List, IntPair)</code>, given the
+     * alignment of the tokens (see <code>alignTokenIndexes</code>), so that the
+     * boundaries of several intervals can be mapped with one alignment
+     */
+    public static IntPair getTokenIndexes(List<IntPair> indexes, IntPair obnd) {
+        if (obnd.getFirst() < 0 || obnd.getFirst() > obnd.getSecond() || obnd.getSecond() >= indexes.size())
+            throw new IndexOutOfBoundsException(
+                    "Original boundaries " + obnd + " are out of bounds [0," + indexes.size() + "]");
+
         IntPair left = indexes.get(obnd.getFirst());
         IntPair right = indexes.get(obnd.getSecond());
 
@@ -21,6 +21,7 @@
 
 package name.adibejan.util;
 
+import name.adibejan.io.FileUtil;
 import name.adibejan.io.TextWriter;
 
 import gnu.trove.map.hash.TObjectIntHashMap;
@@ -45,7 +46,7 @@ import static java.lang.System.out;
  * @version 1.0
  * @since JDK1.6, October 2007
  */
-public class Alphabet<T> implements java.io.Serializable {
+public class Alphabet<T> implements AlphabetLookup<T>, java.io.Serializable {
     private static final long serialVersionUID = 345657823972429457L;
     public static final String DEFAULT_VALUE = "__NULL__";
 
@@ -118,6 +119,13 @@ public class Alphabet<T> implements java.io.Serializable {
         return entries.get(index);
     }
 
+    /**
+     * Returns an immutable copy of this alphabet for inference
+     */
+    public FrozenAlphabet<T> freeze() {
+        return new FrozenAlphabet<T>(this);
+    }
+
     /**
      * Clears the alphabet resources
      */
@@ -189,12 +197,24 @@ public class Alphabet<T> implements java.io.Serializable {
      * Writes this alphabet into a specific location
      */
     public static <T> void save(Alphabet<T> alphabet, String fpath, String fname) {
+        String path = fpath + File.separator + fname;
+        File tmp = null;
         try {
-            ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(fpath + File.separator + fname));
-            oos.writeObject(alphabet);
-            oos.close();
+            // published by atomic rename, a reader never sees a partial alphabet
+            tmp = FileUtil.createSiblingTempFile(path);
+            ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(tmp));
+            try {
+                oos.writeObject(alphabet);
+            } finally {
+                oos.close();
+            }
+            FileUtil.replaceAtomically(tmp, path);
+            tmp = null;
         } catch (IOException e) {
-            out.println("Error writing alphabet to " + fpath + File.separator + fname);
+            out.println("Error writing alphabet to " + path);
+        } finally {
+            if (tmp != null)
+                tmp.delete();
         }
     }
 }
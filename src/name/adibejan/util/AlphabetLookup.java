@@ -0,0 +1,50 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package name.adibejan.util;
+
+/**
+ * Read-only view of an item -- index mapping, as needed at inference time
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public interface AlphabetLookup<T> {
+    /** Index returned for the items that are not in the alphabet */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * Returns the size of the alphabet
+     */
+    public int getSize();
+
+    /**
+     * Tests whether the alphabet contains a specified <code>item</code>
+     */
+    public boolean contains(T item);
+
+    /**
+     * Returns the corresponding index for a specified <code>item</code>, or
+     * <code>UNKNOWN</code> if the item is not in the alphabet
+     */
+    public int getIndex(T item);
+}
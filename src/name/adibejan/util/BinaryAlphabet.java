@@ -0,0 +1,281 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package name.adibejan.util;
+
+import name.adibejan.io.FileUtil;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Read-only string alphabet stored in a compact binary file that is read with
+ * one bulk read (or memory-mapped) instead of Java deserialization.
+ *
+ * Layout (little-endian ints): magic, version, size, tableSize, byteCount,
+ * offsets[size+1], table[tableSize], followed by the UTF-8 bytes of all the
+ * items. Item i is <code>bytes[offsets[i] .. offsets[i+1]-1]</code>; the table is
+ * an open-addressing (linear probing) index of item ids, -1 for an empty slot.
+ * Lookups hash the chars of the key and compare them against the UTF-8 bytes
+ * in place, without building a String.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.7 | October 2026
+ */
+public final class BinaryAlphabet implements PrefixLookup {
+    public static final int MAGIC = 0x424C4155; /* "UALB" in little-endian */
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5 * 4;
+    private static final int HASH_BASIS = 0x811C9DC5;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final int size;
+    private final int mask;
+    private final IntBuffer offsets;
+    private final IntBuffer table;
+    private final ByteBuffer bytes;
+
+    private BinaryAlphabet(ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC)
+            throw new IOException("Not a binary alphabet file");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException("Unsupported binary alphabet version [" + buffer.getInt(4) + "]");
+        size = buffer.getInt(8);
+        int tableSize = buffer.getInt(12);
+        int byteCount = buffer.getInt(16);
+        mask = tableSize - 1;
+
+        int position = HEADER_SIZE;
+        offsets = slice(buffer, position, 4 * (size + 1)).asIntBuffer();
+        position += 4 * (size + 1);
+        table = slice(buffer, position, 4 * tableSize).asIntBuffer();
+        position += 4 * tableSize;
+        bytes = slice(buffer, position, byteCount);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(position);
+        dup.limit(position + length);
+        return dup.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reads a binary alphabet with a single bulk read
+     */
+    public static BinaryAlphabet load(String filePath) throws IOException {
+        FileChannel channel = new FileInputStream(filePath).getChannel();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) != -1);
+            return new BinaryAlphabet(buffer);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Memory-maps a binary alphabet read-only (shared through the page cache)
+     */
+    public static BinaryAlphabet map(String filePath) throws IOException {
+        FileChannel channel = new FileInputStream(filePath).getChannel();
+        try {
+            return new BinaryAlphabet(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Checks whether a file starts with the binary alphabet magic number
+     */
+    public static boolean isBinaryAlphabetFile(String filePath) {
+        try {
+            FileChannel channel = new FileInputStream(filePath).getChannel();
+            try {
+                ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+                while (magic.hasRemaining() && channel.read(magic) != -1);
+                return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+            } finally {
+                channel.close();
+            }
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the items of an alphabet (in index order) in the binary format
+     */
+    public static void save(Alphabet<String> alphabet, String filePath) throws IOException {
+        int size = alphabet.getSize();
+        byte[][] items = new byte[size][];
+        int byteCount = 0;
+        for (int i = 0; i < size; i++) {
+            items[i] = alphabet.getItem(i).getBytes(UTF8);
+            byteCount += items[i].length;
+        }
+        int tableSize = Integer.highestOneBit(Math.max(1, size)) << 2; /* load factor <= 0.5 */
+        int[] table = new int[tableSize];
+        Arrays.fill(table, UNKNOWN);
+        for (int i = 0; i < size; i++) {
+            int slot = hash(alphabet.getItem(i)) & (tableSize - 1);
+            while (table[slot] != UNKNOWN)
+                slot = (slot + 1) & (tableSize - 1);
+            table[slot] = i;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * (size + 1) + 4 * tableSize + byteCount)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(size);
+        buffer.putInt(tableSize);
+        buffer.putInt(byteCount);
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(offset);
+            offset += items[i].length;
+        }
+        buffer.putInt(offset);
+        for (int slot : table)
+            buffer.putInt(slot);
+        for (byte[] item : items)
+            buffer.put(item);
+        buffer.flip();
+
+        FileUtil.writeAtomically(buffer, filePath);
+    }
+
+    /**
+     * FNV-1a over the UTF-16 chars, followed by the murmur3 finalizer
+     */
+    static int hash(CharSequence key) {
+        return mix(update(HASH_BASIS, key, 0, key.length()));
+    }
+
+    private static int update(int h, CharSequence chars, int start, int end) {
+        for (int i = start; i < end; i++) {
+            h = (h ^ chars.charAt(i)) * 0x01000193;
+        }
+        return h;
+    }
+
+    static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean contains(String item) {
+        return getIndex(item) != UNKNOWN;
+    }
+
+    public int getIndex(String item) {
+        return getIndex(HASH_BASIS, "", item, 0, item.length());
+    }
+
+    public long getPrefixState(CharSequence prefix) {
+        return update(HASH_BASIS, prefix, 0, prefix.length());
+    }
+
+    public int getIndex(long prefixState, CharSequence prefix, CharSequence value, int start, int end) {
+        int slot = mix(update((int) prefixState, value, start, end)) & mask;
+        int idx;
+        while ((idx = table.get(slot)) != UNKNOWN) {
+            if (equalsItem(idx, prefix, value, start, end))
+                return idx;
+            slot = (slot + 1) & mask;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Returns the item with a given index. The index must be in the boundary limits.
+     */
+    public String getItem(int index) {
+        if (index < 0 || index >= size)
+            throw new ArrayIndexOutOfBoundsException("The index [" + index + "] is outside the alphabet bounds!");
+        int start = offsets.get(index);
+        byte[] item = new byte[offsets.get(index + 1) - start];
+        for (int i = 0; i < item.length; i++) {
+            item[i] = bytes.get(start + i);
+        }
+        return new String(item, UTF8);
+    }
+
+    /**
+     * Compares the UTF-8 bytes of an item with the chars of the key
+     * <code>prefix + value[start, end)</code>, decoding in place
+     */
+    private boolean equalsItem(int idx, CharSequence prefix, CharSequence value, int start, int end) {
+        int prefixLength = prefix.length();
+        int length = prefixLength + end - start;
+        int k = 0;
+        int pos = offsets.get(idx);
+        int stop = offsets.get(idx + 1);
+        while (pos < stop) {
+            int b = bytes.get(pos++);
+            int cp;
+            if (b >= 0) {
+                cp = b;
+            } else if ((b & 0xE0) == 0xC0 && pos < stop) {
+                cp = ((b & 0x1F) << 6) | (bytes.get(pos++) & 0x3F);
+            } else if ((b & 0xF0) == 0xE0 && pos + 1 < stop) {
+                cp = ((b & 0x0F) << 12) | ((bytes.get(pos++) & 0x3F) << 6) | (bytes.get(pos++) & 0x3F);
+            } else if ((b & 0xF8) == 0xF0 && pos + 2 < stop) {
+                cp = ((b & 0x07) << 18) | ((bytes.get(pos++) & 0x3F) << 12) | ((bytes.get(pos++) & 0x3F) << 6)
+                        | (bytes.get(pos++) & 0x3F);
+            } else {
+                return false;
+            }
+            if (cp < 0x10000) {
+                if (k >= length || charAt(prefix, prefixLength, value, start, k++) != cp)
+                    return false;
+            } else {
+                if (k + 1 >= length
+                        || charAt(prefix, prefixLength, value, start, k++) != Character.highSurrogate(cp)
+                        || charAt(prefix, prefixLength, value, start, k++) != Character.lowSurrogate(cp))
+                    return false;
+            }
+        }
+        return k == length;
+    }
+
+    private static char charAt(CharSequence prefix, int prefixLength, CharSequence value, int start, int k) {
+        return k < prefixLength ? prefix.charAt(k) : value.charAt(start + k - prefixLength);
+    }
+}
@@ -0,0 +1,507 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package name.adibejan.util;
+
+import name.adibejan.io.FileUtil;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Read-only string alphabet stored as a double-array trie with a tail array.
+ * The keys are walked as UTF-8 bytes (U+0000 is written as 0xC0 0x80, so no
+ * key contains a 0 byte). A transition from node <code>s</code> with label
+ * <code>c</code> (0 ends a key, byte + 1 otherwise) goes to node
+ * <code>t = base[s] + c</code> if <code>check[t] == s</code>. As soon as a key
+ * is the only one below a node, the node becomes a leaf
+ * (<code>base = -(index + 1)</code>, the alphabet index of the key) and the
+ * rest of the key is stored in the tail array, terminated by a 0 byte. The keys
+ * share their prefixes in the trie, and the tails share their suffixes (a tail
+ * that ends another tail is stored only once).
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.7 | October 2026
+ */
+public final class DoubleArrayTrieAlphabet implements PrefixLookup {
+    public static final int MAGIC = 0x544C4155; /* "UALT" in little-endian */
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 5 * 4;
+    private static final int LABEL_COUNT = 257;
+
+    private final int size;
+    private final int[] base;
+    private final int[] check;
+    private final int[] tailStarts;
+    private final byte[] tails;
+
+    private DoubleArrayTrieAlphabet(int size, int[] base, int[] check, int[] tailStarts, byte[] tails) {
+        this.size = size;
+        this.base = base;
+        this.check = check;
+        this.tailStarts = tailStarts;
+        this.tails = tails;
+    }
+
+    /**
+     * Builds the trie over the items of an alphabet (the items are read in index order)
+     */
+    public static DoubleArrayTrieAlphabet build(Alphabet<String> alphabet) {
+        return new Builder(alphabet).build();
+    }
+
+    /**
+     * Reads a trie alphabet with a single bulk read
+     */
+    public static DoubleArrayTrieAlphabet load(String filePath) throws IOException {
+        FileChannel channel = new FileInputStream(filePath).getChannel();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) != -1);
+            buffer.flip();
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("Not a trie alphabet file");
+            int version = buffer.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported trie alphabet version [" + version + "]");
+            int size = buffer.getInt();
+            int nodeCount = buffer.getInt();
+            int tailSize = buffer.getInt();
+
+            int[] base = new int[nodeCount];
+            int[] check = new int[nodeCount];
+            int[] tailStarts = new int[size];
+            byte[] tails = new byte[tailSize];
+            buffer.asIntBuffer().get(base);
+            buffer.position(buffer.position() + 4 * nodeCount);
+            buffer.asIntBuffer().get(check);
+            buffer.position(buffer.position() + 4 * nodeCount);
+            buffer.asIntBuffer().get(tailStarts);
+            buffer.position(buffer.position() + 4 * size);
+            buffer.get(tails);
+            return new DoubleArrayTrieAlphabet(size, base, check, tailStarts, tails);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Checks whether a file starts with the trie alphabet magic number
+     */
+    public static boolean isTrieAlphabetFile(String filePath) {
+        try {
+            FileChannel channel = new FileInputStream(filePath).getChannel();
+            try {
+                ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+                while (magic.hasRemaining() && channel.read(magic) != -1);
+                return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+            } finally {
+                channel.close();
+            }
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes this alphabet in the binary format read by <code>load</code>
+     */
+    public void save(String filePath) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 8 * base.length + 4 * size + tails.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(size);
+        buffer.putInt(base.length);
+        buffer.putInt(tails.length);
+        for (int b : base)
+            buffer.putInt(b);
+        for (int c : check)
+            buffer.putInt(c);
+        for (int t : tailStarts)
+            buffer.putInt(t);
+        buffer.put(tails);
+        buffer.flip();
+
+        FileUtil.writeAtomically(buffer, filePath);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of double-array slots
+     */
+    public int getNodeCount() {
+        return base.length;
+    }
+
+    /**
+     * Returns the size of the tail array
+     */
+    public int getTailSize() {
+        return tails.length;
+    }
+
+    /**
+     * Returns the bytes held by the arrays of this alphabet
+     */
+    public long getMemoryBytes() {
+        return 8L * base.length + 4L * tailStarts.length + tails.length;
+    }
+
+    public boolean contains(String item) {
+        return getIndex(item) != UNKNOWN;
+    }
+
+    public int getIndex(String item) {
+        return find(0, item, 0, item.length());
+    }
+
+    /**
+     * The state of a prefix is the trie node it ends on, or -1 when the prefix
+     * ends in a tail or is not in the trie (the key is then walked from the root)
+     */
+    public long getPrefixState(CharSequence prefix) {
+        long state = walk(0, prefix, 0, prefix.length());
+        return state >= 0 && base[(int) state] >= 0 ? state : -1;
+    }
+
+    public int getIndex(long prefixState, CharSequence prefix, CharSequence value, int start, int end) {
+        if (prefixState < 0) {
+            long state = walk(0, prefix, 0, prefix.length());
+            return state == -1 ? UNKNOWN : find(state, value, start, end);
+        }
+        return find(prefixState, value, start, end);
+    }
+
+    /**
+     * Walks <code>chars[start, end)</code> from a state and resolves the index of the key it ends on
+     */
+    private int find(long state, CharSequence chars, int start, int end) {
+        state = walk(state, chars, start, end);
+        if (state == -1)
+            return UNKNOWN;
+        if (state < 0) {
+            long tail = -state - 2;
+            return tails[(int) tail] == 0 ? (int) (tail >>> 32) : UNKNOWN;
+        }
+        int node = (int) state;
+        if (base[node] < 0) {
+            int idx = -base[node] - 1;
+            return tails[tailStarts[idx]] == 0 ? idx : UNKNOWN;
+        }
+        int t = base[node];
+        if (t < check.length && check[t] == node && base[t] < 0)
+            return -base[t] - 1;
+        return UNKNOWN;
+    }
+
+    /**
+     * Walks the UTF-8 bytes of <code>chars[start, end)</code>
+     */
+    private long walk(long state, CharSequence chars, int start, int end) {
+        for (int k = start; k < end && state != -1; k++) {
+            int cp = chars.charAt(k);
+            if (Character.isHighSurrogate((char) cp) && k + 1 < end && Character.isLowSurrogate(chars.charAt(k + 1))) {
+                cp = Character.toCodePoint((char) cp, chars.charAt(++k));
+            }
+            if (cp != 0 && cp < 0x80) {
+                state = step(state, cp);
+            } else if (cp < 0x800) {
+                state = step(step(state, 0xC0 | (cp >> 6)), 0x80 | (cp & 0x3F));
+            } else if (cp < 0x10000) {
+                state = step(step(step(state, 0xE0 | (cp >> 12)), 0x80 | ((cp >> 6) & 0x3F)), 0x80 | (cp & 0x3F));
+            } else {
+                state = step(step(step(step(state, 0xF0 | (cp >> 18)), 0x80 | ((cp >> 12) & 0x3F)),
+                        0x80 | ((cp >> 6) & 0x3F)), 0x80 | (cp & 0x3F));
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Consumes one byte. A state is a trie node (>= 0), a position in the tail
+     * of a leaf (<code>-((index << 32 | position) + 2)</code>) or -1 on a mismatch.
+     */
+    private long step(long state, int b) {
+        if (state == -1)
+            return -1;
+        if (state >= 0) {
+            int node = (int) state;
+            int nodeBase = base[node];
+            if (nodeBase < 0) {
+                int idx = -nodeBase - 1;
+                int pos = tailStarts[idx];
+                return tails[pos] == (byte) b ? -((((long) idx) << 32 | (pos + 1)) + 2) : -1;
+            }
+            int t = nodeBase + b + 1;
+            return t < check.length && check[t] == node ? t : -1;
+        }
+        long tail = -state - 2;
+        int pos = (int) tail;
+        return tails[pos] == (byte) b ? -((tail + 1) + 2) : -1;
+    }
+
+    /**
+     * Encodes a key as the UTF-8 bytes walked by the trie
+     */
+    static byte[] encode(String key) {
+        byte[] bytes = new byte[4 * key.length()];
+        int length = 0;
+        for (int k = 0; k < key.length(); k++) {
+            int cp = key.charAt(k);
+            if (Character.isHighSurrogate((char) cp) && k + 1 < key.length()
+                    && Character.isLowSurrogate(key.charAt(k + 1))) {
+                cp = Character.toCodePoint((char) cp, key.charAt(++k));
+            }
+            if (cp != 0 && cp < 0x80) {
+                bytes[length++] = (byte) cp;
+            } else if (cp < 0x800) {
+                bytes[length++] = (byte) (0xC0 | (cp >> 6));
+                bytes[length++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (cp < 0x10000) {
+                bytes[length++] = (byte) (0xE0 | (cp >> 12));
+                bytes[length++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (cp & 0x3F));
+            } else {
+                bytes[length++] = (byte) (0xF0 | (cp >> 18));
+                bytes[length++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                bytes[length++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (cp & 0x3F));
+            }
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * Builds the double array over the sorted keys, placing the children of a
+     * node at the first base where all their slots are free
+     */
+    private static final class Builder {
+        private final int size;
+        private final byte[][] keys;
+        private final Integer[] order;
+        private int[] base = new int[0];
+        private int[] check = new int[0];
+        private int[] nextFree = new int[0]; /* doubly linked list of the free slots, in increasing order */
+        private int[] prevFree = new int[0];
+        private int firstFree = -1;
+        private int lastFree = -1;
+        private int maxNode = 0;
+        private final byte[][] leafTails;
+
+        Builder(Alphabet<String> alphabet) {
+            size = alphabet.getSize();
+            keys = new byte[size][];
+            order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = encode(alphabet.getItem(i));
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                public int compare(Integer i1, Integer i2) {
+                    return compareBytes(keys[i1], keys[i2]);
+                }
+            });
+            leafTails = new byte[size][];
+            ensureCapacity(1024);
+        }
+
+        DoubleArrayTrieAlphabet build() {
+            occupy(0, 0);
+            if (size > 0)
+                insert(0, 0, size, 0);
+            int nodeCount = maxNode + 1;
+            int[] tailStarts = new int[size];
+            byte[] tails = mergeTails(tailStarts);
+            return new DoubleArrayTrieAlphabet(size, Arrays.copyOf(base, nodeCount), Arrays.copyOf(check, nodeCount),
+                    tailStarts, tails);
+        }
+
+        private static int compareBytes(byte[] a, byte[] b) {
+            int n = Math.min(a.length, b.length);
+            for (int i = 0; i < n; i++) {
+                int d = (a[i] & 0xFF) - (b[i] & 0xFF);
+                if (d != 0)
+                    return d;
+            }
+            return a.length - b.length;
+        }
+
+        private static int label(byte[] key, int depth) {
+            return depth < key.length ? (key[depth] & 0xFF) + 1 : 0;
+        }
+
+        /**
+         * Places the keys <code>order[lo, hi)</code>, which share their first <code>depth</code> bytes, below a node
+         */
+        private void insert(int node, int lo, int hi, int depth) {
+            if (hi - lo == 1) {
+                int idx = order[lo];
+                base[node] = -(idx + 1);
+                byte[] key = keys[idx];
+                leafTails[idx] = Arrays.copyOfRange(key, Math.min(depth, key.length), key.length);
+                return;
+            }
+            int[] labels = new int[Math.min(hi - lo, LABEL_COUNT)];
+            int[] starts = new int[labels.length + 1];
+            int count = 0;
+            for (int k = lo; k < hi; k++) {
+                int label = label(keys[order[k]], depth);
+                if (count == 0 || labels[count - 1] != label) {
+                    labels[count] = label;
+                    starts[count] = k;
+                    count++;
+                }
+            }
+            starts[count] = hi;
+
+            int nodeBase = findBase(labels, count);
+            base[node] = nodeBase;
+            for (int j = 0; j < count; j++) {
+                occupy(nodeBase + labels[j], node);
+            }
+            for (int j = 0; j < count; j++) {
+                insert(nodeBase + labels[j], starts[j], starts[j + 1], depth + 1);
+            }
+        }
+
+        /**
+         * Tries the bases that put the first label on a free slot
+         */
+        private int findBase(int[] labels, int count) {
+            for (int slot = firstFree;; slot = nextFree[slot]) {
+                if (slot == -1) {
+                    slot = check.length;
+                    ensureCapacity(2 * check.length);
+                }
+                int nodeBase = slot - labels[0];
+                if (nodeBase < 0)
+                    continue;
+                ensureCapacity(nodeBase + LABEL_COUNT);
+                boolean free = true;
+                for (int j = 1; j < count && free; j++) {
+                    free = check[nodeBase + labels[j]] == -1;
+                }
+                if (free)
+                    return nodeBase;
+            }
+        }
+
+        private void occupy(int slot, int parent) {
+            check[slot] = parent;
+            maxNode = Math.max(maxNode, slot);
+            int prev = prevFree[slot];
+            int next = nextFree[slot];
+            if (prev == -1)
+                firstFree = next;
+            else
+                nextFree[prev] = next;
+            if (next == -1)
+                lastFree = prev;
+            else
+                prevFree[next] = prev;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= check.length)
+                return;
+            int length = Math.max(capacity, 2 * check.length);
+            int oldLength = check.length;
+            base = Arrays.copyOf(base, length);
+            check = Arrays.copyOf(check, length);
+            nextFree = Arrays.copyOf(nextFree, length);
+            prevFree = Arrays.copyOf(prevFree, length);
+            for (int slot = oldLength; slot < length; slot++) {
+                check[slot] = -1;
+                prevFree[slot] = slot == oldLength ? lastFree : slot - 1;
+                nextFree[slot] = slot + 1 < length ? slot + 1 : -1;
+            }
+            if (lastFree == -1)
+                firstFree = oldLength;
+            else
+                nextFree[lastFree] = oldLength;
+            lastFree = length - 1;
+        }
+
+        /**
+         * Stores the 0-terminated tails, each tail that ends another one only once
+         */
+        private byte[] mergeTails(int[] tailStarts) {
+            Integer[] byReversed = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                byReversed[i] = i;
+            }
+            Arrays.sort(byReversed, new Comparator<Integer>() {
+                public int compare(Integer i1, Integer i2) {
+                    byte[] a = leafTails[i1];
+                    byte[] b = leafTails[i2];
+                    int n = Math.min(a.length, b.length);
+                    for (int k = 1; k <= n; k++) {
+                        int d = (a[a.length - k] & 0xFF) - (b[b.length - k] & 0xFF);
+                        if (d != 0)
+                            return d;
+                    }
+                    return a.length - b.length;
+                }
+            });
+
+            byte[] tails = new byte[1024];
+            int length = 0;
+            int[] tailEnds = new int[size]; /* position of the terminator of each tail */
+            for (int k = size - 1; k >= 0; k--) {
+                int idx = byReversed[k];
+                byte[] tail = leafTails[idx];
+                if (k < size - 1 && endsWith(leafTails[byReversed[k + 1]], tail)) {
+                    tailEnds[idx] = tailEnds[byReversed[k + 1]];
+                } else {
+                    if (length + tail.length + 1 > tails.length)
+                        tails = Arrays.copyOf(tails, Math.max(length + tail.length + 1, 2 * tails.length));
+                    System.arraycopy(tail, 0, tails, length, tail.length);
+                    length += tail.length;
+                    tails[length] = 0;
+                    tailEnds[idx] = length++;
+                }
+                tailStarts[idx] = tailEnds[idx] - tail.length;
+            }
+            return Arrays.copyOf(tails, length);
+        }
+
+        private static boolean endsWith(byte[] bytes, byte[] suffix) {
+            if (suffix.length > bytes.length)
+                return false;
+            for (int k = 1; k <= suffix.length; k++) {
+                if (bytes[bytes.length - k] != suffix[suffix.length - k])
+                    return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package name.adibejan.util;
+
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+/**
+ * Immutable copy of an <code>Alphabet</code> for inference. Lookups never add
+ * items, so the size stays fixed, unknown items map to
+ * <code>AlphabetLookup.UNKNOWN</code> and one instance can be shared by
+ * several threads.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public final class FrozenAlphabet<T> implements AlphabetLookup<T> {
+    private final TObjectIntHashMap<T> map;
+    private final Object[] entries;
+    private final String name;
+
+    /**
+     * Builds a frozen copy of an alphabet (see <code>Alphabet.freeze()</code>)
+     */
+    FrozenAlphabet(Alphabet<T> alphabet) {
+        map = new TObjectIntHashMap<T>(alphabet.map.size(), 0.5f, UNKNOWN);
+        map.putAll(alphabet.map);
+        entries = alphabet.entries.toArray();
+        name = alphabet.name;
+    }
+
+    public int getSize() {
+        return entries.length;
+    }
+
+    /**
+     * Returns the name of the alphabet
+     */
+    public String getName() {
+        return name;
+    }
+
+    public boolean contains(T item) {
+        return map.containsKey(item);
+    }
+
+    public int getIndex(T item) {
+        return map.get(item); /* no entry value is UNKNOWN */
+    }
+
+    /**
+     * Returns the corresponding item for a specified <code>index</code>. The index
+     * must be in the boundary limits.
+     */
+    @SuppressWarnings("unchecked")
+    public T getItem(int index) {
+        if (index < 0 || index >= entries.length)
+            throw new ArrayIndexOutOfBoundsException("The index [" + index + "] is outside the alphabet bounds!");
+        return (T) entries[index];
+    }
+}
@@ -0,0 +1,143 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package name.adibejan.util;
+
+import name.adibejan.io.FileUtil;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Alphabet replaced by a hash function (feature hashing): a key is mapped to
+ * <code>(hash64(key, seed) mod 2^bits) + 1</code>, so no strings are stored,
+ * the memory does not depend on the vocabulary and every key has an index.
+ * Different keys may share an index. Index 0 is not used, as in
+ * <code>Alphabet</code> where it holds the default value.
+ *
+ * The file of a hashing alphabet only holds its parameters (magic, version,
+ * bits and seed), so it can be configured wherever an alphabet file is expected.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.7 | October 2026
+ */
+public final class HashingAlphabet implements PrefixLookup {
+    public static final int MAGIC = 0x484C4155; /* "UALH" in little-endian */
+    public static final int VERSION = 1;
+    private static final int FILE_SIZE = 3 * 4 + 8;
+
+    private final int bits;
+    private final long seed;
+    private final long mask;
+
+    public HashingAlphabet(int bits, long seed) {
+        if (bits < 1 || bits > 30)
+            throw new IllegalArgumentException("The number of hash bits must be in [1, 30], not [" + bits + "]");
+        this.bits = bits;
+        this.seed = seed;
+        this.mask = (1L << bits) - 1;
+    }
+
+    /**
+     * Reads the parameters of a hashing alphabet
+     */
+    public static HashingAlphabet load(String filePath) throws IOException {
+        FileChannel channel = new FileInputStream(filePath).getChannel();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(FILE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) != -1);
+            if (buffer.hasRemaining() || buffer.getInt(0) != MAGIC)
+                throw new IOException("Not a hashing alphabet file");
+            if (buffer.getInt(4) != VERSION)
+                throw new IOException("Unsupported hashing alphabet version [" + buffer.getInt(4) + "]");
+            return new HashingAlphabet(buffer.getInt(8), buffer.getLong(12));
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Checks whether a file starts with the hashing alphabet magic number
+     */
+    public static boolean isHashingAlphabetFile(String filePath) {
+        try {
+            FileChannel channel = new FileInputStream(filePath).getChannel();
+            try {
+                ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+                while (magic.hasRemaining() && channel.read(magic) != -1);
+                return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+            } finally {
+                channel.close();
+            }
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the parameters of this alphabet
+     */
+    public void save(String filePath) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(FILE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(bits);
+        buffer.putLong(seed);
+        buffer.flip();
+
+        FileUtil.writeAtomically(buffer, filePath);
+    }
+
+    /**
+     * Returns the number of indices, including the unused index 0
+     */
+    public int getSize() {
+        return (1 << bits) + 1;
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public boolean contains(String item) {
+        return true;
+    }
+
+    public int getIndex(String item) {
+        return (int) (PerfectHashAlphabet.hash(item, seed) & mask) + 1;
+    }
+
+    public long getPrefixState(CharSequence prefix) {
+        return PerfectHashAlphabet.update(PerfectHashAlphabet.basis(seed), prefix, 0, prefix.length());
+    }
+
+    public int getIndex(long prefixState, CharSequence prefix, CharSequence value, int start, int end) {
+        return (int) (PerfectHashAlphabet.mix(PerfectHashAlphabet.update(prefixState, value, start, end)) & mask) + 1;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package name.adibejan.util;
+
+import java.util.Arrays;
+
+/**
+ * Set of ints kept in insertion order in reusable primitive arrays: an
+ * open-addressing table (linear probing) rejects the duplicates and the
+ * distinct elements are appended to a buffer. Clearing only starts a new
+ * generation of the table, so a buffer can be reused for every instance
+ * without allocating. Not thread-safe; a buffer is meant to be confined to
+ * one thread.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public final class IntSetBuffer {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] elements;
+    private int size;
+    private int[] keys;
+    private int[] stamps;
+    private int generation;
+    private int mask;
+
+    public IntSetBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntSetBuffer(int capacity) {
+        elements = new int[Math.max(capacity, 1)];
+        int tableSize = Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) << 1;
+        keys = new int[tableSize];
+        stamps = new int[tableSize];
+        mask = tableSize - 1;
+        generation = 1;
+    }
+
+    /**
+     * Adds an element if it is not in the set
+     *
+     * @return true if the element was added
+     */
+    public boolean add(int key) {
+        int slot = mix(key) & mask;
+        while (stamps[slot] == generation) {
+            if (keys[slot] == key)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        if (size == elements.length)
+            elements = Arrays.copyOf(elements, size * 2);
+        elements[size++] = key;
+        keys[slot] = key;
+        stamps[slot] = generation;
+        if (size * 2 > keys.length)
+            rehash();
+        return true;
+    }
+
+    /**
+     * Tests whether an element is in the set
+     */
+    public boolean contains(int key) {
+        int slot = mix(key) & mask;
+        while (stamps[slot] == generation) {
+            if (keys[slot] == key)
+                return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of distinct elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the backing array of the elements, in insertion order; only the
+     * first <code>size()</code> entries are valid and the array may change after
+     * the next <code>add</code>
+     */
+    public int[] elements() {
+        return elements;
+    }
+
+    /**
+     * Returns a copy of the elements, in insertion order
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    /**
+     * Empties the set, keeping its arrays
+     */
+    public void clear() {
+        size = 0;
+        if (++generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    private void rehash() {
+        int tableSize = keys.length * 2;
+        keys = new int[tableSize];
+        stamps = new int[tableSize];
+        mask = tableSize - 1;
+        generation = 1;
+        for (int i = 0; i < size; i++) {
+            int slot = mix(elements[i]) & mask;
+            while (stamps[slot] == generation)
+                slot = (slot + 1) & mask;
+            keys[slot] = elements[i];
+            stamps[slot] = generation;
+        }
+    }
+
+    /**
+     * Spreads consecutive ints over the table (murmur3 fmix32)
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
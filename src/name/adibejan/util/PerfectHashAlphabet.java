@@ -0,0 +1,419 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package name.adibejan.util;
+
+import name.adibejan.io.FileUtil;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Read-only string alphabet based on a minimal perfect hash function (hash and
+ * displace): every key is hashed into a bucket and each bucket stores a small
+ * bit-packed pilot that displaces its keys onto distinct slots in
+ * <code>[0, size)</code>. A slot keeps the 32-bit fingerprint of its key, used
+ * to reject unknown keys, and the original alphabet index of that key, so the
+ * indices are the same as those of the alphabet the function was built from.
+ *
+ * The item strings are not stored: an unknown key is accepted with a
+ * probability of 2^-32 (its fingerprint matches the one of the slot it lands on).
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.7 | October 2026
+ */
+public final class PerfectHashAlphabet implements PrefixLookup {
+    public static final int MAGIC = 0x504C4155; /* "UALP" in little-endian */
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8 * 4 + 8;
+    private static final double BUCKET_LOAD = 5.0;
+    private static final int MAX_PILOT = 1 << 20;
+    private static final int MAX_SEEDS = 16;
+
+    private final int size;
+    private final int bucketCount;
+    private final long seed;
+    private final PackedInts pilots;
+    private final PackedInts slotIndices;
+    private final int[] fingerprints;
+
+    private PerfectHashAlphabet(int size, int bucketCount, long seed, PackedInts pilots, PackedInts slotIndices,
+            int[] fingerprints) {
+        this.size = size;
+        this.bucketCount = bucketCount;
+        this.seed = seed;
+        this.pilots = pilots;
+        this.slotIndices = slotIndices;
+        this.fingerprints = fingerprints;
+    }
+
+    /**
+     * Builds the perfect hash function over the items of an alphabet
+     */
+    public static PerfectHashAlphabet build(AlphabetLookup<String> alphabet, List<String> items) {
+        int size = items.size();
+        long[] hashes = new long[size];
+        for (long seed = 0; seed < MAX_SEEDS; seed++) {
+            for (int i = 0; i < size; i++) {
+                hashes[i] = hash(items.get(i), seed);
+            }
+            PerfectHashAlphabet mph = build(alphabet, items, hashes, seed);
+            if (mph != null)
+                return mph;
+        }
+        throw new IllegalStateException("Could not build a perfect hash function for [" + size + "] items");
+    }
+
+    /**
+     * Builds the perfect hash function over the items of an alphabet (the items are read in index order)
+     */
+    public static PerfectHashAlphabet build(Alphabet<String> alphabet) {
+        List<String> items = new ArrayList<String>(alphabet.getSize());
+        for (int i = 0; i < alphabet.getSize(); i++) {
+            items.add(alphabet.getItem(i));
+        }
+        return build(alphabet, items);
+    }
+
+    /**
+     * Places the buckets from the largest to the smallest; returns null if a
+     * bucket cannot be placed with this seed (e.g. two keys share a hash value)
+     */
+    private static PerfectHashAlphabet build(AlphabetLookup<String> alphabet, List<String> items, long[] hashes,
+            long seed) {
+        int size = hashes.length;
+        final int bucketCount = Math.max(1, (int) Math.ceil(size / BUCKET_LOAD));
+        final int[][] buckets = new int[bucketCount][];
+        int[] bucketSizes = new int[bucketCount];
+        for (int i = 0; i < size; i++) {
+            bucketSizes[bucket(hashes[i], bucketCount)]++;
+        }
+        for (int b = 0; b < bucketCount; b++) {
+            buckets[b] = new int[bucketSizes[b]];
+            bucketSizes[b] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            int b = bucket(hashes[i], bucketCount);
+            buckets[b][bucketSizes[b]++] = i;
+        }
+
+        List<Integer> order = new ArrayList<Integer>(bucketCount);
+        for (int b = 0; b < bucketCount; b++) {
+            order.add(b);
+        }
+        Collections.sort(order, new Comparator<Integer>() {
+            public int compare(Integer b1, Integer b2) {
+                return buckets[b2].length - buckets[b1].length;
+            }
+        });
+
+        int[] bucketPilots = new int[bucketCount];
+        int[] slotItems = new int[size];
+        Arrays.fill(slotItems, UNKNOWN);
+        int[] positions = new int[0];
+        int maxPilot = 0;
+        for (int b : order) {
+            int[] bucket = buckets[b];
+            if (bucket.length == 0)
+                break;
+            if (positions.length < bucket.length)
+                positions = new int[bucket.length];
+            int pilot = 0;
+            while (!fits(hashes, bucket, pilot, size, slotItems, positions)) {
+                if (++pilot == MAX_PILOT)
+                    return null;
+            }
+            for (int k = 0; k < bucket.length; k++) {
+                slotItems[positions[k]] = bucket[k];
+            }
+            bucketPilots[b] = pilot;
+            maxPilot = Math.max(maxPilot, pilot);
+        }
+
+        PackedInts pilots = new PackedInts(bucketCount, maxPilot);
+        for (int b = 0; b < bucketCount; b++) {
+            pilots.set(b, bucketPilots[b]);
+        }
+        PackedInts slotIndices = new PackedInts(size, Math.max(0, size - 1));
+        int[] fingerprints = new int[size];
+        for (int slot = 0; slot < size; slot++) {
+            int item = slotItems[slot];
+            slotIndices.set(slot, alphabet.getIndex(items.get(item)));
+            fingerprints[slot] = fingerprint(hashes[item]);
+        }
+        return new PerfectHashAlphabet(size, bucketCount, seed, pilots, slotIndices, fingerprints);
+    }
+
+    /**
+     * Checks whether a pilot sends all the keys of a bucket to distinct free slots
+     */
+    private static boolean fits(long[] hashes, int[] bucket, int pilot, int size, int[] slotItems, int[] positions) {
+        for (int k = 0; k < bucket.length; k++) {
+            int pos = position(hashes[bucket[k]], pilot, size);
+            if (slotItems[pos] != UNKNOWN)
+                return false;
+            for (int j = 0; j < k; j++) {
+                if (positions[j] == pos)
+                    return false;
+            }
+            positions[k] = pos;
+        }
+        return true;
+    }
+
+    /**
+     * Reads a perfect hash alphabet with a single bulk read
+     */
+    public static PerfectHashAlphabet load(String filePath) throws IOException {
+        FileChannel channel = new FileInputStream(filePath).getChannel();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) != -1);
+            buffer.flip();
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("Not a perfect hash alphabet file");
+            int version = buffer.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported perfect hash alphabet version [" + version + "]");
+            int size = buffer.getInt();
+            int bucketCount = buffer.getInt();
+            int pilotWidth = buffer.getInt();
+            int pilotWords = buffer.getInt();
+            int indexWidth = buffer.getInt();
+            int indexWords = buffer.getInt();
+            long seed = buffer.getLong();
+
+            long[] pilotBits = new long[pilotWords];
+            buffer.asLongBuffer().get(pilotBits);
+            buffer.position(buffer.position() + 8 * pilotWords);
+            long[] indexBits = new long[indexWords];
+            buffer.asLongBuffer().get(indexBits);
+            buffer.position(buffer.position() + 8 * indexWords);
+            int[] fingerprints = new int[size];
+            buffer.asIntBuffer().get(fingerprints);
+
+            return new PerfectHashAlphabet(size, bucketCount, seed, new PackedInts(pilotBits, pilotWidth),
+                    new PackedInts(indexBits, indexWidth), fingerprints);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Checks whether a file starts with the perfect hash alphabet magic number
+     */
+    public static boolean isPerfectHashAlphabetFile(String filePath) {
+        try {
+            FileChannel channel = new FileInputStream(filePath).getChannel();
+            try {
+                ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+                while (magic.hasRemaining() && channel.read(magic) != -1);
+                return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+            } finally {
+                channel.close();
+            }
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes this alphabet in the binary format read by <code>load</code>
+     */
+    public void save(String filePath) throws IOException {
+        long[] pilotBits = pilots.getBits();
+        long[] indexBits = slotIndices.getBits();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 8 * (pilotBits.length + indexBits.length) + 4 * size)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(size);
+        buffer.putInt(bucketCount);
+        buffer.putInt(pilots.getWidth());
+        buffer.putInt(pilotBits.length);
+        buffer.putInt(slotIndices.getWidth());
+        buffer.putInt(indexBits.length);
+        buffer.putLong(seed);
+        for (long word : pilotBits)
+            buffer.putLong(word);
+        for (long word : indexBits)
+            buffer.putLong(word);
+        for (int fp : fingerprints)
+            buffer.putInt(fp);
+        buffer.flip();
+
+        FileUtil.writeAtomically(buffer, filePath);
+    }
+
+    /**
+     * FNV-1a (64 bit) over the UTF-16 chars of a key, with a seeded basis
+     */
+    static long hash(CharSequence key, long seed) {
+        return mix(update(basis(seed), key, 0, key.length()));
+    }
+
+    static long basis(long seed) {
+        return 0xCBF29CE484222325L ^ (seed * 0x9E3779B97F4A7C15L);
+    }
+
+    static long update(long h, CharSequence chars, int start, int end) {
+        for (int i = start; i < end; i++) {
+            h = (h ^ chars.charAt(i)) * 0x100000001B3L;
+        }
+        return h;
+    }
+
+    /**
+     * The murmur3 64-bit finalizer
+     */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int bucket(long hash, int bucketCount) {
+        return (int) ((hash >>> 1) % bucketCount);
+    }
+
+    private static int position(long hash, int pilot, int size) {
+        return (int) ((mix(hash ^ (pilot * 0x9E3779B97F4A7C15L)) >>> 1) % size);
+    }
+
+    private static int fingerprint(long hash) {
+        return (int) (hash >>> 32) ^ (int) mix(hash + 0x632BE59BD9B4E019L);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean contains(String item) {
+        return getIndex(item) != UNKNOWN;
+    }
+
+    public int getIndex(String item) {
+        return getIndex(hash(item, seed));
+    }
+
+    public long getPrefixState(CharSequence prefix) {
+        return update(basis(seed), prefix, 0, prefix.length());
+    }
+
+    /**
+     * Looks up <code>prefix + value[start, end)</code>; only the fingerprint of the key is checked
+     */
+    public int getIndex(long prefixState, CharSequence prefix, CharSequence value, int start, int end) {
+        return getIndex(mix(update(prefixState, value, start, end)));
+    }
+
+    private int getIndex(long hash) {
+        if (size == 0)
+            return UNKNOWN;
+        int pos = position(hash, pilots.get(bucket(hash, bucketCount)), size);
+        if (fingerprints[pos] != fingerprint(hash))
+            return UNKNOWN;
+        return slotIndices.get(pos);
+    }
+
+    /**
+     * Returns the number of bits per key used by the hash function (the pilots)
+     */
+    public double getPilotBitsPerKey() {
+        return size == 0 ? 0 : 64.0 * pilots.getBits().length / size;
+    }
+
+    /**
+     * Returns the number of bits per key of the whole structure (pilots, slot indices and fingerprints)
+     */
+    public double getBitsPerKey() {
+        return size == 0 ? 0 : (64.0 * (pilots.getBits().length + slotIndices.getBits().length) + 32.0 * size) / size;
+    }
+
+    /**
+     * Fixed-width unsigned integers packed into 64-bit words
+     */
+    private static final class PackedInts {
+        private final long[] bits;
+        private final int width;
+        private final long mask;
+
+        PackedInts(int count, int maxValue) {
+            this(new long[(int) (((long) count * width(maxValue) + 63) / 64)], width(maxValue));
+        }
+
+        PackedInts(long[] bits, int width) {
+            this.bits = bits;
+            this.width = width;
+            this.mask = width == 0 ? 0 : -1L >>> (64 - width);
+        }
+
+        private static int width(int maxValue) {
+            return 32 - Integer.numberOfLeadingZeros(maxValue);
+        }
+
+        int get(int i) {
+            if (width == 0)
+                return 0;
+            long bit = (long) i * width;
+            int word = (int) (bit >>> 6);
+            int shift = (int) (bit & 63);
+            long value = bits[word] >>> shift;
+            if (shift + width > 64)
+                value |= bits[word + 1] << (64 - shift);
+            return (int) (value & mask);
+        }
+
+        void set(int i, int value) {
+            if (width == 0)
+                return;
+            long bit = (long) i * width;
+            int word = (int) (bit >>> 6);
+            int shift = (int) (bit & 63);
+            bits[word] = (bits[word] & ~(mask << shift)) | ((value & mask) << shift);
+            if (shift + width > 64) {
+                int spill = 64 - shift;
+                bits[word + 1] = (bits[word + 1] & ~(mask >>> spill)) | ((value & mask) >>> spill);
+            }
+        }
+
+        long[] getBits() {
+            return bits;
+        }
+
+        int getWidth() {
+            return width;
+        }
+    }
+}
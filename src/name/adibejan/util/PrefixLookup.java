@@ -0,0 +1,45 @@
+/*
+* This file is part of the Assertion Classifier.
+*
+* The contents of this file are subject to the LGPL License, Version 3.0.
+*
+* Copyright (C) 2021, The University of Washington
+*
+* This program is free software: you can redistribute it and/or modify
+* it under the terms of the GNU General Public License as published by
+* the Free Software Foundation, either version 3 of the License, or
+* (at your option) any later version.
+*
+* This program is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+* GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program.  If not, see http://www.gnu.org/licenses/.
+*/
+
+package name.adibejan.util;
+
+/**
+ * String alphabet that can look up a key given as a prefix plus a range of a
+ * <code>CharSequence</code>, without concatenating them into a String. The
+ * hash state of a prefix is computed once and reused for all its keys.
+ *
+ * @author agent
+ * @version 1.0
+ * @since JDK1.6 | October 2026
+ */
+public interface PrefixLookup extends AlphabetLookup<String> {
+
+    /**
+     * Returns the hash state after the chars of a prefix
+     */
+    public long getPrefixState(CharSequence prefix);
+
+    /**
+     * Returns the index of the key <code>prefix + value[start, end)</code>, or
+     * <code>UNKNOWN</code> if the key is not in the alphabet
+     */
+    public int getIndex(long prefixState, CharSequence prefix, CharSequence value, int start, int end);
+}
@@ -21,22 +21,27 @@
 
 package name.adibejan.util.dynenum;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 
 import static java.lang.System.out;
 
 /**
- * Collection of <code>EnumValue</code> names
+ * Collection of <code>EnumValue</code> names. The set is a bitset indexed by
+ * <code>EnumValue</code> ordinal (like <code>java.util.EnumSet</code>), so
+ * membership tests and copies do not compare strings; the names are only
+ * mapped to their ordinals through the dynenum. The names are listed in
+ * ordinal order.
  *
  * @author Cosmin Adrian Bejan
  * @version 1.0
  * @since JDK1.6 | September 2011
  */
 public class DynamicEnumSet<DE extends DynamicEnum> {
-    private TreeSet<String> names; /* I trade the constant names order for log(n) access */
+    private long[] bits; /* bit i is set iff the value of ordinal i is in the set */
+    private int size;
     private DE dynenum;
 
     /**
@@ -44,14 +49,24 @@ public class DynamicEnumSet<DE extends DynamicEnum> {
      * package
      */
     DynamicEnumSet(DE dynenum) {
+        this(dynenum, new long[(dynenum.size() + 63) >>> 6], 0);
+    }
+
+    private DynamicEnumSet(DE dynenum, long[] bits, int size) {
         this.dynenum = dynenum;
-        names = new TreeSet<String>();
+        this.bits = bits;
+        this.size = size;
     }
 
     /**
-     * Returns the current set of <code>EnumValue</code> names
+     * Returns the current set of <code>EnumValue</code> names, in ordinal order
      */
     public Set<String> set() {
+        Set<String> names = new LinkedHashSet<String>();
+        for (int w = 0; w < bits.length; w++) {
+            for (long word = bits[w]; word != 0; word &= word - 1)
+                names.add(dynenum.get((w << 6) + Long.numberOfTrailingZeros(word)).name());
+        }
         return names;
     }
 
@@ -59,8 +74,7 @@ public class DynamicEnumSet<DE extends DynamicEnum> {
      * Returns a copy of the current set of <code>EnumValue</code> names
      */
     public Set<String> copySet() {
-        Set<String> copyNames = new HashSet<String>(names);
-        return copyNames;
+        return set();
     }
 
     /**
@@ -69,7 +83,23 @@ public class DynamicEnumSet<DE extends DynamicEnum> {
     public void add(String name) {
         if (!dynenum.contains(name))
             throw new IllegalArgumentException("[" + name + "] not in the dynenum!");
-        names.add(name);
+        add(dynenum.map.get(name));
+    }
+
+    /**
+     * Adds a new <code>EnumValue</code> ordinal to this set
+     */
+    public void add(int ordinal) {
+        if (!dynenum.contains(ordinal))
+            throw new IllegalArgumentException("[" + ordinal + "] not in the dynenum!");
+        int w = ordinal >>> 6;
+        if (w >= bits.length)
+            bits = Arrays.copyOf(bits, Math.max(w + 1, (dynenum.size() + 63) >>> 6));
+        long bit = 1L << ordinal;
+        if ((bits[w] & bit) == 0) {
+            bits[w] |= bit;
+            size++;
+        }
     }
 
     public void add(List<String> namesList) {
@@ -84,7 +114,21 @@ public class DynamicEnumSet<DE extends DynamicEnum> {
     public void remove(String name) {
         if (!dynenum.contains(name))
             throw new IllegalArgumentException("[" + name + "] not in the dynenum!");
-        names.remove(name);
+        remove(dynenum.map.get(name));
+    }
+
+    /**
+     * Removes a specific <code>EnumValue</code> ordinal from this set
+     */
+    public void remove(int ordinal) {
+        if (!dynenum.contains(ordinal))
+            throw new IllegalArgumentException("[" + ordinal + "] not in the dynenum!");
+        int w = ordinal >>> 6;
+        long bit = 1L << ordinal;
+        if (w < bits.length && (bits[w] & bit) != 0) {
+            bits[w] &= ~bit;
+            size--;
+        }
     }
 
     public void remove(List<String> namesList) {
@@ -94,38 +138,44 @@ public class DynamicEnumSet<DE extends DynamicEnum> {
     }
 
     public int size() {
-        return names.size();
+        return size;
     }
 
     public boolean isEmpty() {
-        return names.isEmpty();
+        return size == 0;
     }
 
     /**
      * Checks if a give <code>EnumValue</code> name is already in this set
      */
     public boolean contains(String name) {
-        return names.contains(name);
+        return dynenum.contains(name) && contains(dynenum.map.get(name));
+    }
+
+    /**
+     * Checks if a give <code>EnumValue</code> ordinal is already in this set
+     */
+    public boolean contains(int ordinal) {
+        int w = ordinal >>> 6;
+        return ordinal >= 0 && w < bits.length && (bits[w] & (1L << ordinal)) != 0;
     }
 
     public void removeAll(DynamicEnumSet<DE> other) {
-        Set<String> copyNames = copySet(); // to avoid ConcurrentModificationException
-        for (String name : copyNames)
-            if (other.contains(name))
-                remove(name);
+        int words = Math.min(bits.length, other.bits.length);
+        for (int w = 0; w < words; w++) {
+            size -= Long.bitCount(bits[w] & other.bits[w]);
+            bits[w] &= ~other.bits[w];
+        }
     }
 
     /**
      * Copies the elements of this set except a specified element
      */
     public DynamicEnumSet<DE> copyMinus(String minusName) {
-        if (!names.contains(minusName))
+        if (!contains(minusName))
             throw new IllegalArgumentException("[" + minusName + "] not in the dynenum!");
-        DynamicEnumSet<DE> newDES = new DynamicEnumSet<DE>(dynenum);
-        for (String name : names) {
-            if (!name.equals(minusName))
-                newDES.names.add(name);
-        }
+        DynamicEnumSet<DE> newDES = copy();
+        newDES.remove(minusName);
         return newDES;
     }
 
@@ -133,13 +183,10 @@ public class DynamicEnumSet<DE extends DynamicEnum> {
      * Copies the elements of this set plus a specified element
      */
     public DynamicEnumSet<DE> copyPlus(String plusName) {
-        if (names.contains(plusName))
+        if (contains(plusName))
             throw new IllegalArgumentException("[" + plusName + "] already in the set!");
 
-        DynamicEnumSet<DE> newDES = new DynamicEnumSet<DE>(dynenum);
-        for (String name : names) {
-            newDES.names.add(name);
-        }
+        DynamicEnumSet<DE> newDES = copy();
         newDES.add(plusName);
         return newDES;
     }
@@ -148,17 +195,13 @@ public class DynamicEnumSet<DE extends DynamicEnum> {
      * Copies the elements of this set
      */
     public DynamicEnumSet<DE> copy() {
-        DynamicEnumSet<DE> newDES = new DynamicEnumSet<DE>(dynenum);
-        for (String name : names) {
-            newDES.names.add(name);
-        }
-        return newDES;
+        return new DynamicEnumSet<DE>(dynenum, bits.clone(), size);
     }
 
     public void print(String message) {
         out.print(message);
-        for (String name : names)
+        for (String name : set())
             out.print(name + " ");
         out.println();
     }
-}
\ No newline at end of file
+}